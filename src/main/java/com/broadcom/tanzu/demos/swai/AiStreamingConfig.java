@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Threading of AI conversations.
+ * <p>
+ * While streaming, the chat client invokes function callbacks as completion chunks are received,
+ * on the thread emitting the response body: an event loop thread, where blocking calls
+ * (such as those made by function callbacks) are forbidden. This applies to the servlet stack too,
+ * since streaming chat clients are built on {@link org.springframework.web.reactive.function.client.WebClient}.
+ * Event streams read by clients built from the auto-configured
+ * {@link org.springframework.web.reactive.function.client.WebClient.Builder}
+ * are published on a dedicated scheduler instead, before any function callback runs.
+ * <p>
+ * This bounded elastic scheduler is sized like a servlet container thread pool
+ * (the shared bounded elastic scheduler is limited to 10 threads per CPU core):
+ * extra conversations are queued, then rejected. With the reactive stack, whole conversations run on it.
+ */
+@Configuration(proxyBeanMethods = false)
+class AiStreamingConfig {
+    @Bean(destroyMethod = "dispose")
+    Scheduler aiScheduler(@Value("${app.ai.maxConcurrency}") int maxConcurrency,
+                          @Value("${app.ai.maxQueued}") int maxQueued) {
+        return Schedulers.newBoundedElastic(maxConcurrency, maxQueued, "swai-ai");
+    }
+
+    @Bean
+    WebClientCustomizer eventStreamOffloadingCustomizer(Scheduler aiScheduler) {
+        return builder -> builder.filter(offloadEventStreams(aiScheduler));
+    }
+
+    /**
+     * Publish the body of event stream responses on a scheduler: other responses are left untouched.
+     */
+    static ExchangeFilterFunction offloadEventStreams(Scheduler scheduler) {
+        return (req, next) -> next.exchange(req).map(resp -> {
+            final var contentType = resp.headers().contentType().orElse(null);
+            if (contentType == null || !MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType)) {
+                return resp;
+            }
+            return resp.mutate().body(body -> body.publishOn(scheduler)).build();
+        });
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Cache AI answers, so that identical questions do not trigger a full conversation with the model.
+ * <p>
+ * Questions are normalized (case, whitespace and punctuation are ignored).
+ * Cache keys also include a hash of the prompt templates and of the chat options:
+ * updating any of them makes previous answers unreachable.
+ * Chat options are read from the configuration properties of the chat client in use
+ * (such as <code>spring.ai.openai.chat.options</code>), including default values.
+ * Answers are discarded when the Star Wars dataset changes (see {@link StarWarsDataChangedEvent}).
+ * <p>
+ * Concurrent identical questions are coalesced: only one of them is sent to the model.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ai.answerCache.enabled", havingValue = "true", matchIfMissing = true)
+class AnswerCache {
+    static final String CACHE_NAME = "answers";
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String CHAT_PREFIX = "spring.ai.";
+    private static final String CHAT_SUFFIX = ".chat";
+
+    private final Logger logger = LoggerFactory.getLogger(AnswerCache.class);
+    private final Cache cache;
+    private final String model;
+    private final String keyPrefix;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Flux<String>> inFlightStreams = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter coalescedCounter;
+
+    AnswerCache(CacheManager cacheManager, ApplicationContext context, ObjectMapper objectMapper,
+                @Value("classpath:/system-prompt.st") Resource systemPromptRes,
+                @Value("classpath:/ask-prompt.st") Resource askPromptRes,
+                MeterRegistry meterRegistry) {
+        this.cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            throw new IllegalStateException("Cache not found: " + CACHE_NAME);
+        }
+
+        final var options = chatOptions(context, objectMapper);
+        this.model = options.values().stream()
+                .map(o -> o.get("model")).filter(Objects::nonNull).map(String::valueOf)
+                .findFirst().orElse("unknown");
+
+        final var md = sha256();
+        md.update(read(systemPromptRes));
+        md.update(read(askPromptRes));
+        final var writer = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        options.forEach((prefix, o) -> {
+            try {
+                md.update((prefix + "=").getBytes(StandardCharsets.UTF_8));
+                md.update(writer.writeValueAsBytes(o));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize chat options: " + prefix, e);
+            }
+        });
+        this.keyPrefix = HexFormat.of().formatHex(md.digest(), 0, 8) + ":";
+        logger.info("Caching answers from model {} (prompt version: {})", model, keyPrefix);
+
+        this.hitCounter = counter(meterRegistry, "hit");
+        this.missCounter = counter(meterRegistry, "miss");
+        this.coalescedCounter = counter(meterRegistry, "coalesced");
+    }
+
+    private Counter counter(MeterRegistry reg, String result) {
+        return Counter.builder("swai.answers.cache")
+                .description("Answer cache lookups")
+                .tag("model", model)
+                .tag("result", result)
+                .register(reg);
+    }
+
+    /**
+     * Get the options of chat clients (such as <code>spring.ai.openai.chat.options</code>), keyed by configuration prefix.
+     * Options are read from the configuration properties beans, where defaults are already applied.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> chatOptions(ApplicationContext context, ObjectMapper objectMapper) {
+        final var options = new TreeMap<String, Map<String, Object>>();
+        for (final var bean : ConfigurationPropertiesBean.getAll(context).values()) {
+            final var prefix = bean.getAnnotation().prefix();
+            if (!prefix.startsWith(CHAT_PREFIX) || !prefix.endsWith(CHAT_SUFFIX)) {
+                continue;
+            }
+            final var props = PropertyAccessorFactory.forBeanPropertyAccess(bean.getInstance());
+            if (props.isReadableProperty("options")) {
+                final var value = props.getPropertyValue("options");
+                if (value != null) {
+                    options.put(prefix, objectMapper.convertValue(value, Map.class));
+                }
+            }
+        }
+        return options;
+    }
+
+    private static byte[] read(Resource res) {
+        try {
+            return res.getContentAsByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + res, e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String normalize(String question) {
+        final var s = Normalizer.normalize(question, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return NON_WORD.matcher(s).replaceAll(" ").strip();
+    }
+
+    String key(String question) {
+        return keyPrefix + normalize(question);
+    }
+
+    /**
+     * Get the cached answer to this question, or ask the model.
+     */
+    String get(String question, Supplier<String> loader) {
+        final var key = key(question);
+        final var cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final var call = new CompletableFuture<String>();
+        final var leader = inFlight.putIfAbsent(key, call);
+        if (leader != null) {
+            coalescedCounter.increment();
+            try {
+                return leader.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            final var answer = loader.get();
+            store(key, answer);
+            call.complete(answer);
+            return answer;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Stream the cached answer to this question as a single token, or stream the answer from the model.
+     * The answer is only cached when the model has completed it.
+     * Subscribers asking the same question while the answer is streamed share the same stream,
+     * from its first token.
+     */
+    Flux<String> stream(String question, Supplier<Flux<String>> loader) {
+        return Flux.defer(() -> {
+            final var key = key(question);
+            final var cached = lookup(key);
+            if (cached != null) {
+                return Flux.just(cached);
+            }
+            final var stream = share(key, loader);
+            final var leader = inFlightStreams.putIfAbsent(key, stream);
+            if (leader != null) {
+                coalescedCounter.increment();
+                return leader;
+            }
+            return stream;
+        });
+    }
+
+    private Flux<String> share(String key, Supplier<Flux<String>> loader) {
+        final var shared = new AtomicReference<Flux<String>>();
+        shared.set(Flux.defer(() -> {
+                    final var answer = new StringBuilder();
+                    return loader.get()
+                            .doOnNext(answer::append)
+                            .doOnComplete(() -> store(key, answer.toString()));
+                })
+                .doFinally(signal -> inFlightStreams.remove(key, shared.get()))
+                .replay()
+                .refCount());
+        return shared.get();
+    }
+
+    private String lookup(String key) {
+        String answer = null;
+        try {
+            answer = cache.get(key, String.class);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read cached answer", e);
+        }
+        (answer == null ? missCounter : hitCounter).increment();
+        return answer;
+    }
+
+    private void store(String key, String answer) {
+        if (answer == null || answer.isBlank()) {
+            return;
+        }
+        try {
+            cache.put(key, answer);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to cache answer", e);
+        }
+    }
+
+    @EventListener
+    void onDataChanged(StarWarsDataChangedEvent e) {
+        logger.info("Clearing cached answers: Star Wars data changed (version {})", e.version());
+        try {
+            cache.clear();
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to clear cached answers", ex);
+        }
+    }
+}
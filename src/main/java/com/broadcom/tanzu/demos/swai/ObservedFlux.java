@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import reactor.core.publisher.Flux;
+
+import java.util.function.Supplier;
+
+/**
+ * Observe a {@link Flux} from subscription until completion, error or cancellation.
+ * <p>
+ * The observation is started on subscription, and it is stored in the Reactor context
+ * so that observations created by the source are nested under it.
+ * A cancellation (such as a client disconnecting) is recorded as an event before
+ * the observation is stopped.
+ */
+final class ObservedFlux {
+    private static final Observation.Event CANCELLED = Observation.Event.of("cancelled");
+
+    private ObservedFlux() {
+    }
+
+    static <T> Flux<T> observe(Supplier<Observation> observation, Supplier<Flux<T>> source) {
+        return Flux.deferContextual(ctx -> {
+            final var obs = observation.get();
+            ctx.<Observation>getOrEmpty(ObservationThreadLocalAccessor.KEY).ifPresent(obs::parentObservation);
+            obs.start();
+            return Flux.defer(source)
+                    .doOnError(obs::error)
+                    .doOnCancel(() -> obs.event(CANCELLED))
+                    .doFinally(signal -> obs.stop())
+                    .contextWrite(c -> c.put(ObservationThreadLocalAccessor.KEY, obs));
+        });
+    }
+}
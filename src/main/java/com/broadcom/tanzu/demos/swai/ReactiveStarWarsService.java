@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking variant of {@link StarWarsService}.
+ */
+public interface ReactiveStarWarsService {
+    Flux<Film> findFilms();
+
+    Flux<Planet> findPlanets();
+
+    Flux<Planet> findPlanetsByFilm(int filmId);
+
+    Flux<People> findCharactersByFilm(int filmId);
+
+    Flux<People> findResidentsByPlanet(int planetId);
+
+    Flux<People> findCharactersByName(String name);
+
+    Flux<People> findPeopleByIds(int[] peopleIds);
+
+    Flux<Planet> findPlanetsByIds(int[] planetIds);
+
+    Flux<FilmCharacters> findCharactersByFilms(int[] filmIds);
+
+    Flux<FilmPlanets> findPlanetsByFilms(int[] filmIds);
+
+    Flux<Film> findFilmsByCharacter(int peopleId);
+
+    Flux<Film> findFilmsByPlanet(int planetId);
+}
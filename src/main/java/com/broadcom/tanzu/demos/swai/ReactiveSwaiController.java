@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Non-blocking variant of {@link SwaiController}.
+ * <p>
+ * The chat client and its function callbacks are blocking: the conversation is offloaded
+ * to a dedicated scheduler (see {@link AiStreamingConfig}), so that event loop threads are never blocked.
+ * Function callbacks rely on {@link ReactiveStarWarsService}.
+ */
+@RestController
+@Profile("reactive")
+class ReactiveSwaiController {
+    private final SwaiService svc;
+    private final ObservationRegistry reg;
+    private final Scheduler scheduler;
+
+    ReactiveSwaiController(SwaiService svc, ObservationRegistry reg, Scheduler aiScheduler) {
+        this.svc = svc;
+        this.reg = reg;
+        this.scheduler = aiScheduler;
+    }
+
+    @GetMapping(value = "/ai", produces = MediaType.TEXT_PLAIN_VALUE)
+    Mono<String> askAI(@RequestParam("q") String query) {
+        return Mono.fromCallable(() -> Observation.createNotStarted("askAi", reg)
+                        .highCardinalityKeyValue("query", query)
+                        .observe(() -> svc.askAI(query)))
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * Stream the answer as Server-Sent Events, emitting tokens as soon as they are generated.
+     * <p>
+     * When the client disconnects, the subscription is cancelled along with the upstream generation.
+     */
+    @GetMapping(value = "/ai/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<String>> streamAI(@RequestParam("q") String query) {
+        return ObservedFlux.observe(() -> Observation.createNotStarted("askAi", reg)
+                                .highCardinalityKeyValue("query", query),
+                        () -> svc.streamAI(query))
+                .subscribeOn(scheduler)
+                .map(token -> ServerSentEvent.builder(token).build());
+    }
+}
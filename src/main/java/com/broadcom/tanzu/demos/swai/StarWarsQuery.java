@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import com.fasterxml.jackson.annotation.JsonClassDescription;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+
+import java.util.List;
+
+@JsonClassDescription("A query over Star Wars films, planets and people")
+record StarWarsQuery(
+        @JsonProperty(required = true)
+        @JsonPropertyDescription("Entities to query: films, planets or people")
+        String from,
+        @JsonPropertyDescription("Conditions which must all be met by each entity (can be null)")
+        List<Condition> where,
+        @JsonPropertyDescription("Fields to return for each entity, such as name or homeworld.name (can be null for identifier and name)")
+        List<String> select,
+        @JsonPropertyDescription("Field used to group entities before aggregating (can be null)")
+        String groupBy,
+        @JsonPropertyDescription("Aggregate computed over entities, or over each group (can be null)")
+        Aggregate aggregate,
+        @JsonPropertyDescription("Field used to sort results; use value to sort aggregates (can be null)")
+        String orderBy,
+        @JsonPropertyDescription("Sort results in descending order")
+        boolean descending,
+        @JsonPropertyDescription("Maximum number of results (can be null)")
+        Integer limit) {
+
+    @JsonClassDescription("A condition on a field")
+    record Condition(
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("Field to test, such as population or films.title")
+            String field,
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("Operator: eq, ne, contains, gt, gte, lt, lte or in")
+            String op,
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("Value to compare with; use a comma-separated list with the in operator")
+            String value) {
+    }
+
+    @JsonClassDescription("An aggregate function")
+    record Aggregate(
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("Function: count, sum, avg, min or max")
+            String function,
+            @JsonPropertyDescription("Field to aggregate (can be null with count)")
+            String field) {
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Answers structured queries over films, planets and people, so that a multi-hop question
+ * ("characters from a film born on a planet with more than 1 billion inhabitants") is resolved
+ * in a single tool call, instead of letting the model join large lists in its context.
+ * <p>
+ * Relationships are navigated with dotted paths (<code>homeworld.population</code>, <code>films.title</code>):
+ * a condition on a to-many path is met when any related entity matches.
+ * The data is read through {@link StarWarsService}, and benefits from the same caches:
+ * the resulting graph is kept in memory and reused across queries, until it gets older than
+ * <code>app.query.refresh</code> or the Star Wars dataset changes (see {@link StarWarsDataChangedEvent}).
+ */
+@Component
+class StarWarsQueryEngine {
+    static final int DEFAULT_LIMIT = 25;
+    static final int MAX_LIMIT = 100;
+
+    private static final Map<Class<?>, Map<String, Class<?>>> SCHEMA = Map.of(
+            Film.class, Map.of("id", Integer.class, "title", String.class, "episode", Integer.class,
+                    "releaseDate", String.class, "characters", People.class, "planets", Planet.class),
+            Planet.class, Map.of("id", Integer.class, "name", String.class, "population", String.class,
+                    "residents", People.class, "films", Film.class),
+            People.class, Map.of("id", Integer.class, "name", String.class,
+                    "homeworld", Planet.class, "films", Film.class));
+    private static final Set<String> TO_MANY = Set.of("characters", "planets", "residents", "films");
+
+    private final Logger logger = LoggerFactory.getLogger(StarWarsQueryEngine.class);
+    private final StarWarsService svc;
+    private final ObservationRegistry reg;
+    private final long refreshNanos;
+    // Not a monitor: loading the graph blocks on I/O, which would pin the carrier of a virtual thread.
+    private final ReentrantLock graphLock = new ReentrantLock();
+    private volatile Graph graph;
+    private volatile long graphLoadedAt;
+
+    StarWarsQueryEngine(StarWarsService svc, ObservationRegistry reg,
+                        @Value("${app.query.refresh}") Duration refreshInterval) {
+        this.svc = svc;
+        this.reg = reg;
+        this.refreshNanos = refreshInterval.toNanos();
+    }
+
+    private Graph graph() {
+        var g = graph;
+        if (g == null || System.nanoTime() - graphLoadedAt >= refreshNanos) {
+            graphLock.lock();
+            try {
+                g = graph;
+                if (g == null || System.nanoTime() - graphLoadedAt >= refreshNanos) {
+                    g = Observation.createNotStarted("loadQueryGraph", reg).observe(() -> Graph.load(svc));
+                    graphLoadedAt = System.nanoTime();
+                    graph = g;
+                }
+            } finally {
+                graphLock.unlock();
+            }
+        }
+        return g;
+    }
+
+    @EventListener
+    void onDataChanged(StarWarsDataChangedEvent e) {
+        logger.debug("Discarding query graph: Star Wars data changed (version {})", e.version());
+        graph = null;
+    }
+
+    StarWarsQueryResult execute(StarWarsQuery query) {
+        return Observation.createNotStarted("executeQuery", reg)
+                .lowCardinalityKeyValue("from", String.valueOf(query.from()))
+                .observe(() -> doExecute(query));
+    }
+
+    private StarWarsQueryResult doExecute(StarWarsQuery query) {
+        logger.debug("Executing query: {}", query);
+        final var type = entityType(query.from());
+        final var where = query.where() == null ? List.<StarWarsQuery.Condition>of() : query.where();
+        final var select = query.select() == null || query.select().isEmpty()
+                ? List.of("id", type == Film.class ? "title" : "name") : query.select();
+        where.forEach(c -> validate(type, c.field()));
+        select.forEach(f -> validate(type, f));
+        if (query.groupBy() != null) {
+            validate(type, query.groupBy());
+        }
+        if (query.aggregate() != null && query.aggregate().field() != null) {
+            validate(type, query.aggregate().field());
+        }
+
+        final var graph = graph();
+        var filter = (Predicate<Object>) e -> true;
+        for (final var c : where) {
+            filter = filter.and(condition(graph, c));
+        }
+        final var entities = graph.entities(type).stream().filter(filter).toList();
+
+        final List<Map<String, Object>> rows;
+        if (query.aggregate() != null) {
+            rows = aggregate(graph, entities, query.groupBy(), query.aggregate());
+            if (query.orderBy() != null) {
+                sortRows(rows, query.orderBy(), query.descending());
+            }
+        } else {
+            final var sorted = new ArrayList<>(entities);
+            if (query.orderBy() != null) {
+                validate(type, query.orderBy());
+                sorted.sort(Comparator.comparing(e -> first(graph.values(e, query.orderBy())), ordering(query.descending())));
+            }
+            rows = new ArrayList<>(sorted.size());
+            for (final var e : sorted) {
+                final var row = new LinkedHashMap<String, Object>();
+                for (final var field : select) {
+                    final var values = graph.values(e, field);
+                    row.put(field, isToMany(field) ? values : first(values));
+                }
+                rows.add(row);
+            }
+        }
+
+        final var limit = query.limit() == null || query.limit() <= 0 ? DEFAULT_LIMIT : Math.min(query.limit(), MAX_LIMIT);
+        return new StarWarsQueryResult(rows.size(), rows.size() > limit ? rows.subList(0, limit) : rows);
+    }
+
+    private static Class<?> entityType(String from) {
+        return switch (from == null ? "" : from.toLowerCase(Locale.ROOT)) {
+            case "films", "film" -> Film.class;
+            case "planets", "planet" -> Planet.class;
+            case "people", "character", "characters" -> People.class;
+            default -> throw new IllegalArgumentException("Unknown entities: " + from + " (expected films, planets or people)");
+        };
+    }
+
+    private static void validate(Class<?> type, String path) {
+        var current = type;
+        for (final var segment : path.split("\\.")) {
+            final var fields = SCHEMA.get(current);
+            if (fields == null) {
+                throw new IllegalArgumentException("Cannot navigate past a value in field: " + path);
+            }
+            current = fields.get(segment);
+            if (current == null) {
+                throw new IllegalArgumentException("Unknown field in " + path + ": " + segment
+                        + " (expected one of " + new TreeSet<>(fields.keySet()) + ")");
+            }
+        }
+    }
+
+    private static boolean isToMany(String path) {
+        return Arrays.stream(path.split("\\.")).anyMatch(TO_MANY::contains);
+    }
+
+    private static Predicate<Object> condition(Graph graph, StarWarsQuery.Condition c) {
+        final var op = c.op() == null ? "" : c.op().toLowerCase(Locale.ROOT);
+        // "ne" is met when no value is equal: this matters for to-many fields.
+        final var negate = op.equals("ne") || op.equals("!=");
+        final Predicate<Object> test = switch (op) {
+            case "eq", "=", "==", "ne", "!=" -> v -> compareValues(v, c.value()) == 0;
+            case "contains" -> {
+                final var text = requireValue(c).toLowerCase(Locale.ROOT);
+                yield v -> v != null && v.toString().toLowerCase(Locale.ROOT).contains(text);
+            }
+            case "gt", ">" -> v -> isOrdered(v, c.value()) && compareValues(v, c.value()) > 0;
+            case "gte", ">=" -> v -> isOrdered(v, c.value()) && compareValues(v, c.value()) >= 0;
+            case "lt", "<" -> v -> isOrdered(v, c.value()) && compareValues(v, c.value()) < 0;
+            case "lte", "<=" -> v -> isOrdered(v, c.value()) && compareValues(v, c.value()) <= 0;
+            case "in" -> {
+                final var candidates = Arrays.stream(requireValue(c).split(",")).map(String::trim).toList();
+                yield v -> candidates.stream().anyMatch(x -> compareValues(v, x) == 0);
+            }
+            default -> throw new IllegalArgumentException("Unknown operator: " + c.op()
+                    + " (expected eq, ne, contains, gt, gte, lt, lte or in)");
+        };
+        final Predicate<Object> any = e -> graph.values(e, c.field()).stream().anyMatch(test);
+        return negate ? any.negate() : any;
+    }
+
+    private static String requireValue(StarWarsQuery.Condition c) {
+        if (c.value() == null) {
+            throw new IllegalArgumentException("Missing value for operator " + c.op() + " on field: " + c.field());
+        }
+        return c.value();
+    }
+
+    private static List<Map<String, Object>> aggregate(Graph graph, List<Object> entities,
+                                                       String groupBy, StarWarsQuery.Aggregate aggregate) {
+        final var groups = new LinkedHashMap<Object, List<Object>>();
+        if (groupBy == null) {
+            groups.put(null, entities);
+        } else {
+            for (final var e : entities) {
+                // An entity belongs to every group of a to-many field.
+                for (final var key : new LinkedHashSet<>(graph.values(e, groupBy))) {
+                    groups.computeIfAbsent(key, k -> new ArrayList<>()).add(e);
+                }
+            }
+        }
+
+        final var function = aggregate.function() == null ? "" : aggregate.function().toLowerCase(Locale.ROOT);
+        final var rows = new ArrayList<Map<String, Object>>(groups.size());
+        for (final var group : groups.entrySet()) {
+            final var row = new LinkedHashMap<String, Object>();
+            if (groupBy != null) {
+                row.put(groupBy, group.getKey());
+            }
+            row.put("value", aggregate(graph, group.getValue(), function, aggregate.field()));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static Object aggregate(Graph graph, List<Object> entities, String function, String field) {
+        if (field == null) {
+            if (!function.equals("count")) {
+                throw new IllegalArgumentException("Missing field to aggregate with function: " + function);
+            }
+            return entities.size();
+        }
+        final var values = entities.stream().flatMap(e -> graph.values(e, field).stream()).toList();
+        if (function.equals("count")) {
+            return values.size();
+        }
+        final var numbers = values.stream().map(StarWarsQueryEngine::toNumber)
+                .filter(Objects::nonNull).mapToDouble(Double::doubleValue);
+        final var result = switch (function) {
+            case "sum" -> numbers.sum();
+            case "avg" -> numbers.average().orElse(Double.NaN);
+            case "min" -> numbers.min().orElse(Double.NaN);
+            case "max" -> numbers.max().orElse(Double.NaN);
+            default -> throw new IllegalArgumentException("Unknown aggregate function: " + function
+                    + " (expected count, sum, avg, min or max)");
+        };
+        if (Double.isNaN(result)) {
+            return null;
+        }
+        return result == Math.rint(result) && Math.abs(result) < Long.MAX_VALUE ? (Object) (long) result : result;
+    }
+
+    private static void sortRows(List<Map<String, Object>> rows, String column, boolean descending) {
+        rows.sort(Comparator.comparing(row -> row.get(column), ordering(descending)));
+    }
+
+    /**
+     * Sort numbers first, then other values, then missing values: an "unknown" population
+     * is never ranked as the largest one.
+     */
+    private static Comparator<Object> ordering(boolean descending) {
+        return (a, b) -> {
+            final var rank = Integer.compare(rank(a), rank(b));
+            if (rank != 0) {
+                return rank;
+            }
+            return descending ? compareValues(b, a) : compareValues(a, b);
+        };
+    }
+
+    private static int rank(Object value) {
+        return value == null ? 2 : toNumber(value) == null ? 1 : 0;
+    }
+
+    private static Object first(List<Object> values) {
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    private static boolean isOrdered(Object value, String other) {
+        // Ranges only apply to numbers, and to ISO dates.
+        return (toNumber(value) != null && toNumber(other) != null)
+                || (value instanceof String s && s.length() == 10 && s.charAt(4) == '-');
+    }
+
+    /**
+     * Compare values as numbers when both can be parsed (SWAPI populations are strings such as "1,000"),
+     * or as case-insensitive strings.
+     */
+    static int compareValues(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : a == null ? 1 : -1;
+        }
+        final var na = toNumber(a);
+        final var nb = toNumber(b);
+        if (na != null && nb != null) {
+            return Double.compare(na, nb);
+        }
+        return a.toString().compareToIgnoreCase(b.toString());
+    }
+
+    static Double toNumber(Object value) {
+        if (value instanceof Number n) {
+            return n.doubleValue();
+        }
+        if (value == null) {
+            return null;
+        }
+        final var s = value.toString().replace(",", "").trim();
+        if (s.isEmpty() || !(Character.isDigit(s.charAt(0)) || s.charAt(0) == '-')) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Entities and relationships read for a query.
+     */
+    private record Graph(List<Film> films, List<Planet> planets, List<People> people,
+                         Map<Integer, List<People>> charactersByFilm,
+                         Map<Integer, List<Planet>> planetsByFilm,
+                         Map<Integer, List<Film>> filmsByPeople,
+                         Map<Integer, List<Film>> filmsByPlanet,
+                         Map<Integer, List<People>> residentsByPlanet) {
+        static Graph load(StarWarsService svc) {
+            final var films = svc.findFilms();
+            final var filmIds = films.stream().mapToInt(Film::id).toArray();
+            final var filmsById = new HashMap<Integer, Film>();
+            films.forEach(f -> filmsById.put(f.id(), f));
+
+            final var charactersByFilm = new HashMap<Integer, List<People>>();
+            final var filmsByPeople = new HashMap<Integer, List<Film>>();
+            final var people = new LinkedHashMap<Integer, People>();
+            for (final var fc : svc.findCharactersByFilms(filmIds)) {
+                charactersByFilm.put(fc.filmId(), fc.characters());
+                for (final var p : fc.characters()) {
+                    people.putIfAbsent(p.id(), p);
+                    filmsByPeople.computeIfAbsent(p.id(), k -> new ArrayList<>()).add(filmsById.get(fc.filmId()));
+                }
+            }
+
+            final var planetsByFilm = new HashMap<Integer, List<Planet>>();
+            final var filmsByPlanet = new HashMap<Integer, List<Film>>();
+            for (final var fp : svc.findPlanetsByFilms(filmIds)) {
+                planetsByFilm.put(fp.filmId(), fp.planets());
+                for (final var p : fp.planets()) {
+                    filmsByPlanet.computeIfAbsent(p.id(), k -> new ArrayList<>()).add(filmsById.get(fp.filmId()));
+                }
+            }
+
+            final var residentsByPlanet = new HashMap<Integer, List<People>>();
+            for (final var p : people.values()) {
+                if (p.homeworld() != null) {
+                    residentsByPlanet.computeIfAbsent(p.homeworld().id(), k -> new ArrayList<>()).add(p);
+                }
+            }
+            return new Graph(films, svc.findPlanets(), List.copyOf(people.values()),
+                    charactersByFilm, planetsByFilm, filmsByPeople, filmsByPlanet, residentsByPlanet);
+        }
+
+        List<Object> entities(Class<?> type) {
+            return List.<Object>copyOf(type == Film.class ? films : type == Planet.class ? planets : people);
+        }
+
+        /**
+         * Get the values of a field path. Entities at the end of the path are replaced with their name.
+         */
+        List<Object> values(Object entity, String path) {
+            List<Object> current = List.of(entity);
+            for (final var segment : path.split("\\.")) {
+                final var next = new ArrayList<>();
+                for (final var o : current) {
+                    final var v = field(o, segment);
+                    if (v instanceof List<?> l) {
+                        next.addAll(l);
+                    } else if (v != null) {
+                        next.add(v);
+                    }
+                }
+                current = next;
+            }
+            return current.stream().map(Graph::label).toList();
+        }
+
+        private static Object label(Object o) {
+            if (o instanceof Film f) {
+                return f.title();
+            }
+            if (o instanceof Planet p) {
+                return p.name();
+            }
+            return o instanceof People p ? p.name() : o;
+        }
+
+        private Object field(Object entity, String field) {
+            if (entity instanceof Film f) {
+                return switch (field) {
+                    case "id" -> f.id();
+                    case "title" -> f.title();
+                    case "episode" -> f.episode();
+                    case "releaseDate" -> f.releaseDate() == null ? null : f.releaseDate().toString();
+                    case "characters" -> charactersByFilm.getOrDefault(f.id(), List.of());
+                    case "planets" -> planetsByFilm.getOrDefault(f.id(), List.of());
+                    default -> throw new IllegalArgumentException("Unknown film field: " + field);
+                };
+            }
+            if (entity instanceof Planet p) {
+                return switch (field) {
+                    case "id" -> p.id();
+                    case "name" -> p.name();
+                    case "population" -> p.population();
+                    case "residents" -> residentsByPlanet.getOrDefault(p.id(), List.of());
+                    case "films" -> filmsByPlanet.getOrDefault(p.id(), List.of());
+                    default -> throw new IllegalArgumentException("Unknown planet field: " + field);
+                };
+            }
+            if (entity instanceof People p) {
+                return switch (field) {
+                    case "id" -> p.id();
+                    case "name" -> p.name();
+                    case "homeworld" -> p.homeworld();
+                    case "films" -> filmsByPeople.getOrDefault(p.id(), List.of());
+                    default -> throw new IllegalArgumentException("Unknown people field: " + field);
+                };
+            }
+            throw new IllegalArgumentException("Cannot read field " + field + " from value: " + entity);
+        }
+    }
+}
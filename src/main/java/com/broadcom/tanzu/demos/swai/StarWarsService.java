@@ -30,4 +30,16 @@ public interface StarWarsService {
     List<People> findResidentsByPlanet(int planetId);
 
     List<People> findCharactersByName(String name);
+
+    List<People> findPeopleByIds(int[] peopleIds);
+
+    List<Planet> findPlanetsByIds(int[] planetIds);
+
+    List<FilmCharacters> findCharactersByFilms(int[] filmIds);
+
+    List<FilmPlanets> findPlanetsByFilms(int[] filmIds);
+
+    List<Film> findFilmsByCharacter(int peopleId);
+
+    List<Film> findFilmsByPlanet(int planetId);
 }
@@ -64,18 +64,84 @@ class SwaiConfig {
         return req -> svc.findPlanetsByFilm(req.filmId());
     }
 
+    @Bean
+    @Description("Find people by identifiers. Use this function to resolve many characters in a single call. The result is a list of people, in the same order as the given identifiers. Each entry includes a people identifier, a name and an origin (homeworld).")
+    Function<ByPeopleIdsRequest, List<People>> peopleByIds(StarWarsService svc) {
+        return req -> svc.findPeopleByIds(req.peopleIds());
+    }
+
+    @Bean
+    @Description("Find planets by identifiers. Use this function to resolve many planets in a single call. The result is a list of planets, in the same order as the given identifiers. Each entry includes a planet identifier, a name and a population.")
+    Function<ByPlanetIdsRequest, List<Planet>> planetsByIds(StarWarsService svc) {
+        return req -> svc.findPlanetsByIds(req.planetIds());
+    }
+
+    @Bean
+    @Description("Find characters by films. Use this function instead of calling charactersByFilm for each film. The result is a list with an entry per film, including the film identifier and every characters appearing in this film.")
+    Function<ByFilmIdsRequest, List<FilmCharacters>> charactersByFilms(StarWarsService svc) {
+        return req -> svc.findCharactersByFilms(req.filmIds());
+    }
+
+    @Bean
+    @Description("Find films by character. The result is a list of films in which a given character appears. Each entry includes a film identifier, a title, an episode number and a release date.")
+    Function<ByPeopleRequest, List<Film>> filmsByCharacter(StarWarsService svc) {
+        return req -> svc.findFilmsByCharacter(req.peopleId());
+    }
+
+    @Bean
+    @Description("Find films by planet. The result is a list of films in which a given planet is mentioned. Each entry includes a film identifier, a title, an episode number and a release date.")
+    Function<ByPlanetRequest, List<Film>> filmsByPlanet(StarWarsService svc) {
+        return req -> svc.findFilmsByPlanet(req.planetId());
+    }
+
+    @Bean
+    @Description("""
+            Query Star Wars films, planets and people in a single call, instead of combining the results of several functions. \
+            Select entities from films (fields: id, title, episode, releaseDate, characters, planets), \
+            planets (fields: id, name, population, residents, films) or people (fields: id, name, homeworld, films). \
+            Use dotted fields to follow relationships, such as homeworld.population or films.title. \
+            Entities can be filtered, grouped and aggregated (count, sum, avg, min, max), sorted and limited. \
+            The result includes the total number of matching entities, and the selected fields of each entity.""")
+    Function<StarWarsQuery, StarWarsQueryResult> query(StarWarsQueryEngine engine) {
+        return engine::execute;
+    }
+
     @JsonClassDescription("A request using a planet identifier")
     record ByPlanetRequest(
             @JsonProperty(required = true)
             @JsonPropertyDescription("Planet identifier") int planetId) {
     }
 
+    @JsonClassDescription("A request using a people identifier")
+    record ByPeopleRequest(
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("People identifier") int peopleId) {
+    }
+
     @JsonClassDescription("A request using a film identifier")
     record ByFilmRequest(
             @JsonProperty(required = true)
             @JsonPropertyDescription("Film identifier") int filmId) {
     }
 
+    @JsonClassDescription("A request using people identifiers")
+    record ByPeopleIdsRequest(
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("People identifiers") int[] peopleIds) {
+    }
+
+    @JsonClassDescription("A request using planet identifiers")
+    record ByPlanetIdsRequest(
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("Planet identifiers") int[] planetIds) {
+    }
+
+    @JsonClassDescription("A request using film identifiers")
+    record ByFilmIdsRequest(
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("Film identifiers") int[] filmIds) {
+    }
+
     @JsonClassDescription("A request using a character name")
     record ByNameRequest(
             @JsonProperty(required = true)
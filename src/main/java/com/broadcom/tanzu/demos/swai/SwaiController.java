@@ -18,12 +18,16 @@ package com.broadcom.tanzu.demos.swai;
 
 import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 @RestController
+@Profile("!reactive")
 class SwaiController {
     private final SwaiService svc;
     private final ObservationRegistry reg;
@@ -39,4 +43,17 @@ class SwaiController {
                 .highCardinalityKeyValue("query", query)
                 .observe(() -> svc.askAI(query));
     }
+
+    /**
+     * Stream the answer as Server-Sent Events, emitting tokens as soon as they are generated.
+     * <p>
+     * When the client disconnects, the subscription is cancelled along with the upstream generation.
+     */
+    @GetMapping(value = "/ai/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<String>> streamAI(@RequestParam("q") String query) {
+        return ObservedFlux.observe(() -> Observation.createNotStarted("askAi", reg)
+                                .highCardinalityKeyValue("query", query),
+                        () -> svc.streamAI(query))
+                .map(token -> ServerSentEvent.builder(token).build());
+    }
 }
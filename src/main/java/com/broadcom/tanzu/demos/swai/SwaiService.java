@@ -21,12 +21,16 @@ import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.ChatClient;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.StreamingChatClient;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.chat.prompt.SystemPromptTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Map;
@@ -36,28 +40,67 @@ class SwaiService {
     private final Logger logger = LoggerFactory.getLogger(SwaiService.class);
 
     private final ChatClient chatClient;
+    private final StreamingChatClient streamingChatClient;
+    private final AnswerCache answerCache;
     private final ObservationRegistry reg;
     @Value("classpath:/system-prompt.st")
     private Resource systemPromptRes;
     @Value("classpath:/ask-prompt.st")
     private Resource askPromptRes;
 
-    SwaiService(ChatClient chatClient, ObservationRegistry reg) {
+    SwaiService(ChatClient chatClient, StreamingChatClient streamingChatClient,
+                ObjectProvider<AnswerCache> answerCache, ObservationRegistry reg) {
         this.chatClient = chatClient;
+        this.streamingChatClient = streamingChatClient;
+        this.answerCache = answerCache.getIfAvailable();
         this.reg = reg;
     }
 
     String askAI(String query) {
-        final var sysMsg = new SystemPromptTemplate(systemPromptRes).createMessage();
-        final var askMsg = new PromptTemplate(askPromptRes).createMessage(Map.of(
-                "question", query
-        ));
+        return answerCache == null ? sendPrompt(query) : answerCache.get(query, () -> sendPrompt(query));
+    }
 
-        final var prompt = new Prompt(List.of(sysMsg, askMsg));
+    private String sendPrompt(String query) {
+        final var prompt = createPrompt(query);
         return Observation.createNotStarted("sendPrompt", reg)
                 .observe(() -> {
                     logger.debug("Sending prompt:\n{}", prompt.getContents());
                     return chatClient.call(prompt).getResult().getOutput().getContent();
                 });
     }
+
+    /**
+     * Stream the completion as tokens are generated.
+     * <p>
+     * Cancelling the subscription cancels the upstream generation.
+     */
+    Flux<String> streamAI(String query) {
+        return answerCache == null ? streamPrompt(query) : answerCache.stream(query, () -> streamPrompt(query));
+    }
+
+    private Flux<String> streamPrompt(String query) {
+        return ObservedFlux.observe(() -> Observation.createNotStarted("sendPrompt", reg), () -> {
+            final var prompt = createPrompt(query);
+            logger.debug("Streaming prompt:\n{}", prompt.getContents());
+            return streamingChatClient.stream(prompt)
+                    .mapNotNull(SwaiService::getContent)
+                    .filter(token -> !token.isEmpty());
+        });
+    }
+
+    private Prompt createPrompt(String query) {
+        final var sysMsg = new SystemPromptTemplate(systemPromptRes).createMessage();
+        final var askMsg = new PromptTemplate(askPromptRes).createMessage(Map.of(
+                "question", query
+        ));
+        return new Prompt(List.of(sysMsg, askMsg));
+    }
+
+    private static String getContent(ChatResponse resp) {
+        // Some chunks (such as the final one) carry no generation.
+        if (resp == null || resp.getResult() == null || resp.getResult().getOutput() == null) {
+            return null;
+        }
+        return resp.getResult().getOutput().getContent();
+    }
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent calls with an AIMD algorithm (additive increase, multiplicative decrease):
+ * the limit grows by one for every window of successful calls, and shrinks as soon as a call fails
+ * or is slower than a latency threshold.
+ * <p>
+ * Calls exceeding the limit wait in a bounded queue for a short time, before being rejected
+ * with a {@link RejectedExecutionException}.
+ * <p>
+ * Reactive calls share the same limit: they only wait on a bounded elastic thread
+ * when no call slot is immediately available, so that event loop threads are never blocked.
+ */
+class AdaptiveLimiterInterceptor implements MethodInterceptor {
+    private final Logger logger = LoggerFactory.getLogger(AdaptiveLimiterInterceptor.class);
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+
+    AdaptiveLimiterInterceptor(String name, int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                               Duration latencyThreshold, int maxQueue, Duration queueTimeout, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.maxQueue = maxQueue;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        Gauge.builder("swai.limiter.limit", this, AdaptiveLimiterInterceptor::limit)
+                .description("Current concurrency limit")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("swai.limiter.inflight", this, AdaptiveLimiterInterceptor::inFlight)
+                .description("Number of calls in flight")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("swai.limiter.queued", this, AdaptiveLimiterInterceptor::queued)
+                .description("Number of calls waiting for the limiter")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (ReactiveInvocations.isReactive(invocation)) {
+            return invokeReactive(invocation);
+        }
+        acquire();
+        final var start = System.nanoTime();
+        var success = false;
+        try {
+            final var result = invocation.proceed();
+            success = true;
+            return result;
+        } catch (HttpClientErrorException e) {
+            // Client errors (such as 404) are not a sign of overload, unlike throttling.
+            success = !e.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+            throw e;
+        } finally {
+            release(success && System.nanoTime() - start < latencyThresholdNanos);
+        }
+    }
+
+    private Mono<Object> invokeReactive(MethodInvocation invocation) {
+        return Mono.defer(() -> {
+            final var acquired = tryAcquire();
+            final var call = Mono.using(() -> {
+                if (!acquired) {
+                    acquire();
+                }
+                return new Permit();
+            }, permit -> ReactiveInvocations.proceed(invocation)
+                    .doOnSuccess(result -> permit.success = true)
+                    .doOnError(WebClientResponseException.class, e ->
+                            permit.success = e.getStatusCode().is4xxClientError()
+                                    && !e.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS))
+                    .doOnCancel(() -> permit.success = true), Permit::release);
+            return acquired ? call : call.subscribeOn(Schedulers.boundedElastic());
+        });
+    }
+
+    private boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                ++inFlight;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                ++inFlight;
+                return;
+            }
+            if (queued >= maxQueue) {
+                throw new RejectedExecutionException("Too many concurrent calls to " + name);
+            }
+            ++queued;
+            try {
+                var remaining = queueTimeoutNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        throw new RejectedExecutionException("Timed out waiting for a call slot to " + name);
+                    }
+                    try {
+                        remaining = available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        throw SwapiErrors.interrupted("Interrupted while waiting for a call slot to " + name, e);
+                    }
+                }
+                ++inFlight;
+            } finally {
+                --queued;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(boolean success) {
+        lock.lock();
+        try {
+            --inFlight;
+            final var previous = (int) limit;
+            if (success) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            } else {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            }
+            if ((int) limit != previous) {
+                logger.debug("Concurrency limit for {} updated: {}", name, (int) limit);
+                available.signalAll();
+            } else {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Call slot held by a reactive call, released when the call terminates or is cancelled.
+     */
+    private final class Permit {
+        private final long start = System.nanoTime();
+        private volatile boolean success;
+
+        void release() {
+            AdaptiveLimiterInterceptor.this.release(success && System.nanoTime() - start < latencyThresholdNanos);
+        }
+    }
+
+    double limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
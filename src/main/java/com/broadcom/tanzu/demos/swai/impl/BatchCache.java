@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Cache} supporting multi-key operations in a single round-trip.
+ */
+interface BatchCache extends Cache {
+    /**
+     * Get values for the given keys, using a loader for missing keys.
+     * Loaded values are written back to the cache.
+     */
+    Map<Object, Object> getAll(Collection<?> keys, Loader loader);
+
+    void putAll(Map<?, ?> entries);
+
+    /**
+     * Load values for missing keys.
+     */
+    @FunctionalInterface
+    interface Loader {
+        /**
+         * Load values for these keys.
+         * Expired values still held by the cache are passed along (for revalidation),
+         * so that loaders do not need to read them again.
+         */
+        Map<Object, Object> load(List<Object> keys, Map<Object, Object> expired);
+    }
+}
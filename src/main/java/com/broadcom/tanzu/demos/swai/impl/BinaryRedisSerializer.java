@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.People;
+import com.broadcom.tanzu.demos.swai.Planet;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link RedisSerializer} using a compact binary encoding for domain records.
+ * <p>
+ * Each value starts with a tag byte identifying its type: no class name is stored.
+ * Values without a dedicated encoding are delegated to a fallback serializer.
+ * Payloads larger than a threshold are compressed with LZ4.
+ */
+class BinaryRedisSerializer implements RedisSerializer<Object> {
+    private static final byte FORMAT_PLAIN = 0;
+    private static final byte FORMAT_LZ4 = 1;
+
+    private static final byte NULL = 0;
+    private static final byte FILM = 1;
+    private static final byte PLANET = 2;
+    private static final byte PEOPLE = 3;
+    private static final byte LIST = 4;
+    private static final byte STRING = 5;
+    private static final byte INT = 6;
+    private static final byte INT_ARRAY = 7;
+    // Tag 8 held SWAPI films with URL references: such entries are no longer decoded and read as misses.
+    private static final byte CACHED_VALUE = 9;
+    private static final byte CACHED_PEOPLE = 10;
+    private static final byte VALIDATED = 11;
+    private static final byte SWAPI_FILM = 12;
+    private static final byte FALLBACK = 127;
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final byte NO_KIND = -1;
+
+    private final RedisSerializer<Object> fallback;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    BinaryRedisSerializer(RedisSerializer<Object> fallback, int compressionThreshold) {
+        this.fallback = fallback;
+        this.compressionThreshold = compressionThreshold;
+        final var lz4 = LZ4Factory.fastestInstance();
+        this.compressor = lz4.fastCompressor();
+        this.decompressor = lz4.fastDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        final var bytes = new ByteArrayOutputStream(256);
+        final var out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(FORMAT_PLAIN);
+            write(out, value);
+            out.flush();
+        } catch (IOException e) {
+            throw new SerializationException("Failed to serialize value: " + value, e);
+        }
+
+        final var payload = bytes.toByteArray();
+        final var payloadLength = payload.length - 1;
+        if (compressionThreshold < 0 || payloadLength < compressionThreshold) {
+            return payload;
+        }
+        final var compressed = new byte[5 + compressor.maxCompressedLength(payloadLength)];
+        final var compressedLength = compressor.compress(payload, 1, payloadLength, compressed, 5);
+        if (compressedLength >= payloadLength) {
+            return payload;
+        }
+        ByteBuffer.wrap(compressed).put(FORMAT_LZ4).putInt(payloadLength);
+        final var result = new byte[5 + compressedLength];
+        System.arraycopy(compressed, 0, result, 0, result.length);
+        return result;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        var buf = ByteBuffer.wrap(bytes);
+        final var format = buf.get();
+        if (format == FORMAT_LZ4) {
+            final var payload = new byte[buf.getInt()];
+            decompressor.decompress(bytes, 5, payload, 0, payload.length);
+            buf = ByteBuffer.wrap(payload);
+        } else if (format != FORMAT_PLAIN) {
+            throw new SerializationException("Unsupported format: " + format);
+        }
+        try {
+            return read(buf);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to deserialize value", e);
+        }
+    }
+
+    private void write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof CachedValue e) {
+            out.writeByte(CACHED_VALUE);
+            out.writeLong(e.writtenAt());
+            write(out, e.value());
+        } else if (value instanceof CachedPeople p) {
+            out.writeByte(CACHED_PEOPLE);
+            out.writeInt(p.id());
+            writeString(out, p.name());
+            out.writeInt(p.homeworldId());
+        } else if (value instanceof Validated<?> v) {
+            out.writeByte(VALIDATED);
+            writeString(out, v.etag());
+            writeString(out, v.lastModified());
+            write(out, v.value());
+        } else if (value instanceof Film f) {
+            out.writeByte(FILM);
+            out.writeInt(f.id());
+            writeString(out, f.title());
+            out.writeInt(f.episode());
+            writeDate(out, f.releaseDate());
+        } else if (value instanceof Planet p) {
+            out.writeByte(PLANET);
+            writePlanet(out, p);
+        } else if (value instanceof People p) {
+            out.writeByte(PEOPLE);
+            out.writeInt(p.id());
+            writeString(out, p.name());
+            if (p.homeworld() == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                writePlanet(out, p.homeworld());
+            }
+        } else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            writeLength(out, list.size());
+            for (final var item : list) {
+                write(out, item);
+            }
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INT);
+            out.writeInt(i);
+        } else if (value instanceof int[] ints) {
+            out.writeByte(INT_ARRAY);
+            writeLength(out, ints.length);
+            for (final var i : ints) {
+                out.writeInt(i);
+            }
+        } else if (value instanceof SwapiFilm f) {
+            out.writeByte(SWAPI_FILM);
+            writeString(out, f.title());
+            out.writeInt(f.episodeId());
+            writeRef(out, f.url());
+            writeRefs(out, f.characters());
+            writeRefs(out, f.planets());
+            writeDate(out, f.releaseDate());
+        } else {
+            out.writeByte(FALLBACK);
+            final var bytes = fallback.serialize(value);
+            writeLength(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private Object read(ByteBuffer buf) {
+        final var tag = buf.get();
+        return switch (tag) {
+            case NULL -> null;
+            case FILM -> new Film(buf.getInt(), readString(buf), buf.getInt(), readDate(buf));
+            case PLANET -> readPlanet(buf);
+            case PEOPLE -> new People(buf.getInt(), readString(buf), buf.get() != 0 ? readPlanet(buf) : null);
+            case LIST -> {
+                final var size = readLength(buf);
+                final var list = new ArrayList<>(size);
+                for (int i = 0; i < size; ++i) {
+                    list.add(read(buf));
+                }
+                yield list;
+            }
+            case STRING -> readString(buf);
+            case INT -> buf.getInt();
+            case INT_ARRAY -> {
+                final var ints = new int[readLength(buf)];
+                for (int i = 0; i < ints.length; ++i) {
+                    ints[i] = buf.getInt();
+                }
+                yield ints;
+            }
+            case SWAPI_FILM -> new SwapiFilm(readString(buf), buf.getInt(), readRef(buf),
+                    readRefs(buf), readRefs(buf), readDate(buf));
+            case CACHED_VALUE -> {
+                final var writtenAt = buf.getLong();
+                yield new CachedValue(read(buf), writtenAt);
+            }
+            case CACHED_PEOPLE -> new CachedPeople(buf.getInt(), readString(buf), buf.getInt());
+            case VALIDATED -> {
+                final var etag = readString(buf);
+                final var lastModified = readString(buf);
+                yield new Validated<>(read(buf), etag, lastModified);
+            }
+            case FALLBACK -> {
+                final var bytes = new byte[readLength(buf)];
+                buf.get(bytes);
+                yield fallback.deserialize(bytes);
+            }
+            default -> throw new IllegalStateException("Unsupported tag: " + tag);
+        };
+    }
+
+    private static void writePlanet(DataOutputStream out, Planet p) throws IOException {
+        out.writeInt(p.id());
+        writeString(out, p.name());
+        writeString(out, p.population());
+    }
+
+    private static Planet readPlanet(ByteBuffer buf) {
+        return new Planet(buf.getInt(), readString(buf), readString(buf));
+    }
+
+    private static void writeLength(DataOutputStream out, int length) throws IOException {
+        var v = length;
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    private static int readLength(ByteBuffer buf) {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            final var b = buf.get();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            writeLength(out, 0);
+            return;
+        }
+        final var bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeLength(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        final var length = readLength(buf) - 1;
+        if (length < 0) {
+            return null;
+        }
+        final var s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+        buf.position(buf.position() + length);
+        return s;
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate d) throws IOException {
+        out.writeInt(d == null ? NO_DATE : Math.toIntExact(d.toEpochDay()));
+    }
+
+    private static LocalDate readDate(ByteBuffer buf) {
+        final var d = buf.getInt();
+        return d == NO_DATE ? null : LocalDate.ofEpochDay(d);
+    }
+
+    private static void writeRef(DataOutputStream out, SwapiRef ref) throws IOException {
+        if (ref == null) {
+            out.writeByte(NO_KIND);
+        } else {
+            out.writeByte(ref.kind().code());
+            out.writeInt(ref.id());
+        }
+    }
+
+    private static SwapiRef readRef(ByteBuffer buf) {
+        final var kind = buf.get();
+        return kind == NO_KIND ? null : new SwapiRef(SwapiKind.fromCode(kind), buf.getInt());
+    }
+
+    private static void writeRefs(DataOutputStream out, SwapiRefs refs) throws IOException {
+        out.writeByte(refs.kind().code());
+        writeLength(out, refs.size());
+        for (final var id : refs.ids()) {
+            out.writeInt(id);
+        }
+    }
+
+    private static SwapiRefs readRefs(ByteBuffer buf) {
+        final var kind = SwapiKind.fromCode(buf.get());
+        final var ids = new int[readLength(buf)];
+        for (int i = 0; i < ids.length; ++i) {
+            ids[i] = buf.getInt();
+        }
+        return new SwapiRefs(kind, ids);
+    }
+}
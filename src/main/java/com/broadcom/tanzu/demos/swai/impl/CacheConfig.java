@@ -19,29 +19,89 @@ package com.broadcom.tanzu.demos.swai.impl;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
 
 import java.time.Duration;
 
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
+@EnableConfigurationProperties(SwaiCacheProperties.class)
 class CacheConfig {
     @Bean
     RedisCacheConfiguration redisCacheConfiguration(ObjectMapper om,
-                                                    @Value("${app.cache.ttl}") Duration cacheTtl) {
+                                                    @Value("${app.cache.ttl}") Duration cacheTtl,
+                                                    @Value("${app.cache.staleIfError}") Duration staleIfError,
+                                                    @Value("${app.cache.serializer}") String serializer,
+                                                    @Value("${app.cache.compressionThreshold}") int compressionThreshold) {
+        final var json = jsonSerializer(om);
+        final RedisSerializer<Object> valueSerializer = switch (serializer) {
+            case "json" -> json;
+            case "binary" -> new BinaryRedisSerializer(json, compressionThreshold);
+            default -> throw new IllegalArgumentException("Unsupported cache serializer: " + serializer);
+        };
+        // Keep entries in Redis long enough to serve them when a refresh fails.
+        return RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(cacheTtl.plus(staleIfError))
+                .disableCachingNullValues()
+                .serializeValuesWith(SerializationPair.fromSerializer(valueSerializer));
+    }
+
+    static RedisSerializer<Object> jsonSerializer(ObjectMapper om) {
         final var omCopy = om.copy()
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
                 .activateDefaultTyping(om.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
-        return RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(cacheTtl)
-                .disableCachingNullValues()
-                .serializeValuesWith(SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer(omCopy)));
+        return new GenericJackson2JsonRedisSerializer(omCopy);
+    }
+
+    @Bean
+    CacheInvalidations cacheInvalidations(StringRedisTemplate redis, SwaiCacheProperties props) {
+        return new CacheInvalidations(redis, props.invalidationChannel());
+    }
+
+    @Bean
+    TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     RedisCacheConfiguration cacheConfiguration,
+                                     SwaiCacheProperties props,
+                                     CacheInvalidations invalidations,
+                                     MeterRegistry meterRegistry) {
+        final var builder = RedisCacheManager.builder(connectionFactory).cacheDefaults(cacheConfiguration);
+        props.specs().forEach((name, spec) -> {
+            if (spec.ttl() != null) {
+                builder.withCacheConfiguration(name, cacheConfiguration.entryTtl(spec.ttl().plus(props.staleIfError())));
+            }
+        });
+        final var redisCacheManager = builder.build();
+        redisCacheManager.afterPropertiesSet();
+        return new TwoTierCacheManager(redisCacheManager, props, invalidations, meterRegistry,
+                new RedisBatchOperations(connectionFactory));
+    }
+
+    @Bean
+    RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                            TwoTierCacheManager cacheManager,
+                                                            ObjectProvider<StarWarsSnapshotLoader> snapshotLoader,
+                                                            SwaiCacheProperties props) {
+        final var container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        final var topic = new ChannelTopic(props.invalidationChannel());
+        container.addMessageListener(cacheManager, topic);
+        snapshotLoader.ifAvailable(loader -> container.addMessageListener(loader, topic));
+        return container;
     }
 }
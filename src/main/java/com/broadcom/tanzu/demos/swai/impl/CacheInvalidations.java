@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+/**
+ * Broadcasts cache invalidations to other nodes through Redis pub/sub.
+ * Messages are made of lines: node id, operation, cache name, then evicted keys.
+ * Changes in the Star Wars dataset are broadcast on the same channel, with the new version instead of a cache name.
+ */
+class CacheInvalidations {
+    static final String EVICT = "E";
+    static final String CLEAR = "C";
+    static final String DATA_CHANGED = "D";
+
+    private final Logger logger = LoggerFactory.getLogger(CacheInvalidations.class);
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redis;
+    private final String channel;
+
+    CacheInvalidations(StringRedisTemplate redis, String channel) {
+        this.redis = redis;
+        this.channel = channel;
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    void publishEvict(String cacheName, Collection<String> keys) {
+        publish(EVICT, cacheName, keys);
+    }
+
+    void publishClear(String cacheName) {
+        publish(CLEAR, cacheName, List.of());
+    }
+
+    void publishDataChanged(String version) {
+        final var message = new StringJoiner("\n").add(nodeId).add(DATA_CHANGED).add(version);
+        try {
+            redis.convertAndSend(channel, message.toString());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to publish Star Wars data version {}", version, e);
+        }
+    }
+
+    private void publish(String op, String cacheName, Collection<String> keys) {
+        final var message = new StringJoiner("\n").add(nodeId).add(op).add(cacheName);
+        keys.forEach(message::add);
+        try {
+            redis.convertAndSend(channel, message.toString());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to publish cache invalidation for {} in cache {}", keys, cacheName, e);
+        }
+    }
+}
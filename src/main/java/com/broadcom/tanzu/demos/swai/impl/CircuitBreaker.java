@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+/**
+ * Count-based circuit breaker.
+ * <p>
+ * The breaker opens when the failure rate over the last calls reaches a threshold:
+ * calls are then rejected without being invoked. After a delay, the breaker lets a few trial calls through
+ * (half-open state): it closes if they all succeed, and opens again otherwise.
+ */
+class CircuitBreaker {
+    enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String name;
+    private final boolean[] outcomes;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final BiConsumer<State, State> listener;
+    private State state = State.CLOSED;
+    private int count;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    CircuitBreaker(String name, int windowSize, int minCalls, double failureRateThreshold,
+                   Duration openDuration, int halfOpenCalls, BiConsumer<State, State> listener) {
+        this.name = name;
+        this.outcomes = new boolean[windowSize];
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.listener = listener;
+    }
+
+    String name() {
+        return name;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            --halfOpenPermits;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                transition(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (count >= minCalls && (double) failures / count >= failureRateThreshold) {
+                transition(State.OPEN);
+            }
+        }
+    }
+
+    private void record(boolean failure) {
+        if (count == outcomes.length) {
+            if (outcomes[next]) {
+                --failures;
+            }
+        } else {
+            ++count;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            ++failures;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void transition(State to) {
+        final var from = state;
+        state = to;
+        switch (to) {
+            case CLOSED -> {
+                count = 0;
+                next = 0;
+                failures = 0;
+            }
+            case OPEN -> openedAt = System.nanoTime();
+            case HALF_OPEN -> {
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+            }
+        }
+        listener.accept(from, to);
+    }
+}
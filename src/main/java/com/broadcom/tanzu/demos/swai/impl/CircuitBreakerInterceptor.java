@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Protects SWAPI endpoints with a {@link CircuitBreaker} each: when an endpoint is failing,
+ * calls fail fast with a {@link CallNotPermittedException} instead of waiting for a timeout.
+ * Only transient errors are counted as failures.
+ * <p>
+ * Reactive calls are checked when they are subscribed, and fail with the same exception.
+ */
+class CircuitBreakerInterceptor implements MethodInterceptor {
+    private final Logger logger = LoggerFactory.getLogger(CircuitBreakerInterceptor.class);
+    private final String name;
+    private final int windowSize;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    CircuitBreakerInterceptor(String name, int windowSize, int minCalls, double failureRateThreshold,
+                              Duration openDuration, int halfOpenCalls, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenCalls = halfOpenCalls;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        final var breaker = breakers.computeIfAbsent(endpoint(invocation.getMethod()), this::createBreaker);
+        if (ReactiveInvocations.isReactive(invocation)) {
+            return invokeReactive(breaker, invocation);
+        }
+        if (!breaker.tryAcquire()) {
+            throw callNotPermitted(breaker);
+        }
+        try {
+            final var result = invocation.proceed();
+            breaker.onSuccess();
+            return result;
+        } catch (Throwable e) {
+            if (SwapiErrors.isTransient(e)) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            throw e;
+        }
+    }
+
+    private Mono<Object> invokeReactive(CircuitBreaker breaker, MethodInvocation invocation) {
+        return Mono.defer(() -> {
+            if (!breaker.tryAcquire()) {
+                return Mono.error(callNotPermitted(breaker));
+            }
+            return ReactiveInvocations.proceed(invocation)
+                    .doOnSuccess(result -> breaker.onSuccess())
+                    .doOnError(e -> {
+                        if (SwapiErrors.isTransient(e)) {
+                            breaker.onFailure();
+                        } else {
+                            breaker.onSuccess();
+                        }
+                    })
+                    // A cancelled call is not a sign of failure: give back its permit.
+                    .doOnCancel(breaker::onSuccess);
+        });
+    }
+
+    private CallNotPermittedException callNotPermitted(CircuitBreaker breaker) {
+        return new CallNotPermittedException("Circuit breaker is open for " + name + " endpoint: " + breaker.name());
+    }
+
+    Collection<CircuitBreaker> breakers() {
+        return breakers.values();
+    }
+
+    /**
+     * Get the SWAPI endpoint a method is calling: <code>films</code>, <code>planets</code>,
+     * <code>people</code>, or <code>search</code>.
+     */
+    static String endpoint(Method method) {
+        final var m = method.getName();
+        if (m.contains("Film")) {
+            return "films";
+        }
+        if (m.contains("Planet")) {
+            return "planets";
+        }
+        if (m.contains("ByName")) {
+            return "search";
+        }
+        return "people";
+    }
+
+    private CircuitBreaker createBreaker(String endpoint) {
+        final var breaker = new CircuitBreaker(endpoint, windowSize, minCalls, failureRateThreshold,
+                openDuration, halfOpenCalls, (from, to) -> {
+            logger.info("Circuit breaker for {} endpoint {}: {} -> {}", name, endpoint, from, to);
+            Counter.builder("swai.breaker.transitions")
+                    .description("Number of circuit breaker state transitions")
+                    .tag("name", name)
+                    .tag("endpoint", endpoint)
+                    .tag("state", to.name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+        });
+        Gauge.builder("swai.breaker.state", breaker, b -> b.state().ordinal())
+                .description("Circuit breaker state (0: closed, 1: half-open, 2: open)")
+                .tag("name", name)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        return breaker;
+    }
+
+    static class CallNotPermittedException extends IllegalStateException {
+        CallNotPermittedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces concurrent identical calls (same method, same arguments): only the first call
+ * is actually invoked, and the other ones wait for its outcome.
+ */
+class CoalescingInterceptor implements MethodInterceptor {
+    private final String name;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<CallKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Method, Counter> counters = new ConcurrentHashMap<>();
+
+    CoalescingInterceptor(String name, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.name = name;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        final var key = new CallKey(invocation.getMethod(), invocation.getArguments().clone());
+        final var call = new CompletableFuture<>();
+        final var leader = inFlight.putIfAbsent(key, call);
+        if (leader != null) {
+            coalesced(invocation.getMethod());
+            try {
+                return leader.join();
+            } catch (CompletionException e) {
+                throw e.getCause() != null ? e.getCause() : e;
+            }
+        }
+
+        try {
+            final var result = invocation.proceed();
+            call.complete(result);
+            return result;
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private void coalesced(Method method) {
+        counters.computeIfAbsent(method, m -> Counter.builder("swai.calls.coalesced")
+                .description("Number of calls served by an identical in-flight call")
+                .tag("name", name)
+                .tag("method", m.getName())
+                .register(meterRegistry.getObject())).increment();
+    }
+
+    private record CallKey(Method method, Object[] args) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CallKey k && method.equals(k.method) && Arrays.equals(args, k.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * method.hashCode() + Arrays.hashCode(args);
+        }
+    }
+}
@@ -17,6 +17,8 @@
 package com.broadcom.tanzu.demos.swai.impl;
 
 import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.FilmCharacters;
+import com.broadcom.tanzu.demos.swai.FilmPlanets;
 import com.broadcom.tanzu.demos.swai.People;
 import com.broadcom.tanzu.demos.swai.Planet;
 import com.broadcom.tanzu.demos.swai.StarWarsService;
@@ -26,6 +28,7 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 @Service
@@ -92,4 +95,44 @@ class FakeStarWarsService implements StarWarsService {
         logger.debug("Loading residents living on planet {}: {}", planetId, residents);
         return residents;
     }
+
+    @Override
+    public List<People> findPeopleByIds(int[] peopleIds) {
+        return Arrays.stream(peopleIds).mapToObj(id -> switch (id) {
+            case 1 -> javaTheHutt;
+            case 2 -> elsa;
+            default -> throw new IllegalArgumentException("Unknown people id: " + id);
+        }).toList();
+    }
+
+    @Override
+    public List<Planet> findPlanetsByIds(int[] planetIds) {
+        return Arrays.stream(planetIds).mapToObj(id -> switch (id) {
+            case 1 -> sandtopia;
+            case 2 -> frozen;
+            default -> throw new IllegalArgumentException("Unknown planet id: " + id);
+        }).toList();
+    }
+
+    @Override
+    public List<FilmCharacters> findCharactersByFilms(int[] filmIds) {
+        return Arrays.stream(filmIds).mapToObj(id -> new FilmCharacters(id, findCharactersByFilm(id))).toList();
+    }
+
+    @Override
+    public List<FilmPlanets> findPlanetsByFilms(int[] filmIds) {
+        return Arrays.stream(filmIds).mapToObj(id -> new FilmPlanets(id, findPlanetsByFilm(id))).toList();
+    }
+
+    @Override
+    public List<Film> findFilmsByCharacter(int peopleId) {
+        final var character = findPeopleByIds(new int[]{peopleId}).get(0);
+        return films.stream().filter(f -> findCharactersByFilm(f.id()).contains(character)).toList();
+    }
+
+    @Override
+    public List<Film> findFilmsByPlanet(int planetId) {
+        final var planet = findPlanetsByIds(new int[]{planetId}).get(0);
+        return films.stream().filter(f -> findPlanetsByFilm(f.id()).contains(planet)).toList();
+    }
 }
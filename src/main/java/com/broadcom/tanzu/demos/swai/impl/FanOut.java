@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Resolves a list of items concurrently with a bounded number of threads.
+ * Results are returned in the same order as the input items.
+ * As soon as one item fails, pending items are cancelled and the error is rethrown.
+ * <p>
+ * When virtual threads are enabled, each item is resolved in a new virtual thread:
+ * the number of concurrent items is still bounded, by virtual threads waiting for a permit
+ * (submitting an item never blocks the caller).
+ */
+@Component
+class FanOut implements DisposableBean {
+    private final ObservationRegistry reg;
+    private final Executor executor;
+    private final SimpleAsyncTaskExecutor virtualExecutor;
+
+    FanOut(@Value("${app.swapi.parallelism}") int parallelism,
+           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+           ObservationRegistry reg) {
+        this.reg = reg;
+        if (parallelism > 1 && virtualThreads) {
+            final var vt = new SimpleAsyncTaskExecutor("swapi-fanout-");
+            vt.setVirtualThreads(true);
+            vt.setTaskTerminationTimeout(1000);
+            final var permits = new Semaphore(parallelism);
+            this.virtualExecutor = vt;
+            this.executor = task -> vt.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } else if (parallelism > 1) {
+            final var threadFactory = new CustomizableThreadFactory("swapi-fanout-");
+            threadFactory.setDaemon(true);
+            this.executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+            this.virtualExecutor = null;
+        } else {
+            this.executor = null;
+            this.virtualExecutor = null;
+        }
+    }
+
+    /**
+     * Resolve items concurrently: each item is observed, tagged with the identifier returned by <code>idOf</code>.
+     */
+    <T, R> List<R> map(String name, List<T> items, Function<? super T, ?> idOf, Function<? super T, ? extends R> fn) {
+        final var parent = reg.getCurrentObservation();
+        if (executor == null || items.size() < 2) {
+            final var results = new ArrayList<R>(items.size());
+            for (final var item : items) {
+                results.add(observe(name, parent, item, idOf, fn));
+            }
+            return results;
+        }
+
+        final var futures = new ArrayList<CompletableFuture<R>>(items.size());
+        final var failure = new CompletableFuture<Void>();
+        for (final var item : items) {
+            final CompletableFuture<R> f = CompletableFuture.supplyAsync(() -> observe(name, parent, item, idOf, fn), executor);
+            f.whenComplete((r, e) -> {
+                if (e != null) {
+                    failure.completeExceptionally(e);
+                }
+            });
+            futures.add(f);
+        }
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)), failure).join();
+        } catch (CompletionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw rethrow(e);
+        }
+
+        final var results = new ArrayList<R>(items.size());
+        for (final var f : futures) {
+            results.add(f.join());
+        }
+        return results;
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor != null ? executor : Runnable::run);
+    }
+
+    static <T> T await(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            throw rethrow(e);
+        }
+    }
+
+    private <T, R> R observe(String name, Observation parent, T item, Function<? super T, ?> idOf,
+                             Function<? super T, ? extends R> fn) {
+        return Observation.createNotStarted(name, reg)
+                .parentObservation(parent)
+                .highCardinalityKeyValue("id", String.valueOf(idOf.apply(item)))
+                .observe(() -> fn.apply(item));
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        var cause = e;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException re) {
+            return re;
+        }
+        if (cause instanceof Error err) {
+            throw err;
+        }
+        return new IllegalStateException("Failed to resolve item", cause);
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService es) {
+            es.shutdownNow();
+        } else if (virtualExecutor != null) {
+            virtualExecutor.close();
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedges slow calls: when a call has not completed after a percentile of recent latencies,
+ * a duplicate call is sent and the first response wins, while the other call is cancelled.
+ * <p>
+ * Once enough latencies are known, both attempts run off the caller thread, which only waits for the first
+ * response: a blocking read which ignores interrupts cannot hold the caller once the other attempt has completed.
+ * Primary attempts run on a pool growing with the number of callers, while hedges run on a pool bounded
+ * by <code>maxConcurrency</code> (no hedge is sent when the pool is full). The losing attempt is interrupted,
+ * on a best-effort basis. When virtual threads are enabled, each attempt runs in a new virtual thread,
+ * with the same bound on concurrent hedges.
+ * <p>
+ * Hedges are limited by a budget: every call earns a fraction of a hedge, and sending a hedge
+ * costs a full one. This way hedges can never exceed a ratio of the traffic, even during an outage.
+ * Only use this interceptor for idempotent calls.
+ */
+class HedgingInterceptor implements MethodInterceptor, DisposableBean {
+    private static final long TOKEN = 1000;
+    private static final int MIN_SAMPLES = 20;
+
+    private final String name;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long tokensPerCall;
+    private final long maxTokens;
+    private final AtomicLong tokens;
+    private final ObservationRegistry reg;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor primaryExecutor;
+    private final SimpleAsyncTaskExecutor virtualExecutor;
+    private final Semaphore virtualPermits;
+    private final Map<Method, LatencyWindow> windows = new ConcurrentHashMap<>();
+    private final Map<Method, Counter> sentCounters = new ConcurrentHashMap<>();
+    private final Map<Method, Counter> wonCounters = new ConcurrentHashMap<>();
+
+    HedgingInterceptor(String name, double percentile, Duration minDelay, double budget, int maxConcurrency,
+                       boolean virtualThreads, ObservationRegistry reg, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.tokensPerCall = Math.round(budget * TOKEN);
+        this.maxTokens = 10 * TOKEN;
+        this.tokens = new AtomicLong(maxTokens);
+        this.reg = reg;
+        this.meterRegistry = meterRegistry;
+
+        final var timerThreadFactory = new CustomizableThreadFactory(name + "-hedge-timer-");
+        timerThreadFactory.setDaemon(true);
+        this.timer = new ScheduledThreadPoolExecutor(1, timerThreadFactory);
+        this.timer.setRemoveOnCancelPolicy(true);
+
+        if (virtualThreads) {
+            this.virtualExecutor = new SimpleAsyncTaskExecutor(name + "-hedge-");
+            this.virtualExecutor.setVirtualThreads(true);
+            this.virtualPermits = new Semaphore(maxConcurrency);
+            this.executor = null;
+            this.primaryExecutor = null;
+        } else {
+            final var threadFactory = new CustomizableThreadFactory(name + "-hedge-");
+            threadFactory.setDaemon(true);
+            this.executor = new ThreadPoolExecutor(0, maxConcurrency, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), threadFactory);
+            // Primary attempts are bounded by the number of callers, which are waiting for them.
+            final var primaryThreadFactory = new CustomizableThreadFactory(name + "-call-");
+            primaryThreadFactory.setDaemon(true);
+            this.primaryExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), primaryThreadFactory);
+            this.virtualExecutor = null;
+            this.virtualPermits = null;
+        }
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        final var method = invocation.getMethod();
+        final var window = windows.computeIfAbsent(method, m -> new LatencyWindow(256));
+        tokens.accumulateAndGet(tokensPerCall, (t, inc) -> Math.min(maxTokens, t + inc));
+
+        final var delay = window.percentile(percentile);
+        if (delay < 0 || !(invocation instanceof ProxyMethodInvocation pmi)) {
+            // Not enough samples yet.
+            return window.time(invocation::proceed);
+        }
+
+        // Clone the invocation before proceeding: a clone is bound to the current interceptor.
+        final var hedgeInvocation = pmi.invocableClone();
+        final var call = new HedgedCall(method);
+        final var parent = reg.getCurrentObservation();
+        final Runnable primary = () -> {
+            try {
+                call.primaryCompleted(window.time(invocation::proceed));
+            } catch (Throwable e) {
+                call.primaryFailed(e);
+            }
+        };
+        try {
+            call.primarySubmitted(submitPrimary(parent == null ? primary : () -> parent.scoped(primary)));
+        } catch (RejectedExecutionException e) {
+            // Shutting down: no hedge for this call.
+            return window.time(invocation::proceed);
+        }
+        final var hedgeTimer = timer.schedule(() -> hedge(call, hedgeInvocation, window, parent),
+                Math.max(delay, minDelayNanos), TimeUnit.NANOSECONDS);
+        try {
+            return call.result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            throw SwapiErrors.interrupted("Interrupted while waiting for a hedged call to " + method.getName(), e);
+        } finally {
+            hedgeTimer.cancel(false);
+            call.cancel();
+        }
+    }
+
+    private void hedge(HedgedCall call, MethodInvocation invocation, LatencyWindow window, Observation parent) {
+        if (!tryAcquireHedge()) {
+            return;
+        }
+        if (!call.startHedge()) {
+            refundHedge();
+            return;
+        }
+        final Runnable task = () -> {
+            try {
+                call.hedgeCompleted(window.time(invocation::proceed));
+            } catch (Throwable e) {
+                call.hedgeFailed();
+            }
+        };
+        try {
+            call.hedgeSubmitted(submit(parent == null ? task : () -> parent.scoped(task)));
+        } catch (RejectedExecutionException e) {
+            // Every hedging thread is busy.
+            refundHedge();
+            call.hedgeFailed();
+            return;
+        }
+        counter(sentCounters, "swai.calls.hedged", "Number of hedged calls sent", invocation.getMethod()).increment();
+    }
+
+    private Future<?> submitPrimary(Runnable task) {
+        return virtualExecutor == null ? primaryExecutor.submit(task) : virtualExecutor.submit(task);
+    }
+
+    private Future<?> submit(Runnable task) {
+        if (virtualExecutor == null) {
+            return executor.submit(task);
+        }
+        if (!virtualPermits.tryAcquire()) {
+            throw new RejectedExecutionException("Too many hedged calls to " + name);
+        }
+        try {
+            return virtualExecutor.submit(() -> {
+                try {
+                    task.run();
+                } finally {
+                    virtualPermits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            virtualPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * State of a call with a primary attempt, and an optional hedged attempt.
+     */
+    private class HedgedCall {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final Method method;
+        private boolean primaryRunning = true;
+        private Throwable primaryError;
+        private boolean hedgeRunning;
+        private Future<?> primary;
+        private Future<?> hedge;
+
+        HedgedCall(Method method) {
+            this.method = method;
+        }
+
+        synchronized boolean startHedge() {
+            if (!primaryRunning || result.isDone()) {
+                return false;
+            }
+            hedgeRunning = true;
+            return true;
+        }
+
+        synchronized void primarySubmitted(Future<?> f) {
+            primary = f;
+            if (result.isDone()) {
+                primary.cancel(true);
+            }
+        }
+
+        synchronized void hedgeSubmitted(Future<?> f) {
+            hedge = f;
+            if (result.isDone()) {
+                hedge.cancel(true);
+            }
+        }
+
+        /**
+         * Cancel the attempt still running once the call has a result.
+         */
+        synchronized void cancel() {
+            if (primary != null) {
+                primary.cancel(true);
+            }
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+
+        void primaryCompleted(Object value) {
+            synchronized (this) {
+                primaryRunning = false;
+            }
+            result.complete(value);
+        }
+
+        synchronized void primaryFailed(Throwable error) {
+            primaryRunning = false;
+            primaryError = error;
+            if (!hedgeRunning) {
+                // Only report an error once every attempt has failed.
+                result.completeExceptionally(error);
+            }
+        }
+
+        synchronized void hedgeFailed() {
+            hedgeRunning = false;
+            if (primaryError != null) {
+                result.completeExceptionally(primaryError);
+            }
+        }
+
+        void hedgeCompleted(Object value) {
+            synchronized (this) {
+                hedgeRunning = false;
+            }
+            if (result.complete(value)) {
+                counter(wonCounters, "swai.calls.hedged.won", "Number of hedged calls completing first", method).increment();
+            }
+        }
+    }
+
+    private boolean tryAcquireHedge() {
+        while (true) {
+            final var t = tokens.get();
+            if (t < TOKEN) {
+                return false;
+            }
+            if (tokens.compareAndSet(t, t - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    private void refundHedge() {
+        tokens.accumulateAndGet(TOKEN, (t, inc) -> Math.min(maxTokens, t + inc));
+    }
+
+    private Counter counter(Map<Method, Counter> counters, String meterName, String description, Method method) {
+        return counters.computeIfAbsent(method, m -> Counter.builder(meterName)
+                .description(description)
+                .tag("name", name)
+                .tag("method", m.getName())
+                .register(meterRegistry));
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        if (executor != null) {
+            executor.shutdownNow();
+            primaryExecutor.shutdownNow();
+        } else {
+            virtualExecutor.close();
+        }
+    }
+
+    /**
+     * Sliding window of recent call latencies.
+     */
+    static class LatencyWindow {
+        private final long[] samples;
+        private int count;
+        private int next;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        Object time(ThrowingSupplier call) throws Throwable {
+            final var start = System.nanoTime();
+            final var result = call.get();
+            record(System.nanoTime() - start);
+            return result;
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * Get a latency percentile (in nanoseconds), or <code>-1</code> if there are not enough samples.
+         */
+        long percentile(double p) {
+            final long[] copy;
+            synchronized (this) {
+                if (count < MIN_SAMPLES) {
+                    return -1;
+                }
+                copy = Arrays.copyOf(samples, count);
+            }
+            Arrays.sort(copy);
+            return copy[Math.max(0, Math.min(copy.length - 1, (int) Math.ceil(p * copy.length) - 1))];
+        }
+    }
+
+    @FunctionalInterface
+    interface ThrowingSupplier {
+        Object get() throws Throwable;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable search index over people names.
+ * <p>
+ * Names are normalized (case, accents, punctuation), then indexed in a prefix trie of name words,
+ * and in an inverted index of character trigrams. Matches are ranked by tier:
+ * exact name, then word prefixes (<code>"luke sky"</code>), then substrings (<code>"walk"</code>),
+ * mirroring the SWAPI search. Only when none of these match, trigrams are used to find names
+ * within a small edit distance of the query (<code>"luk skywalkr"</code>).
+ */
+final class PeopleNameIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+    private static final double MIN_SIMILARITY = 0.7;
+
+    private final CachedPeople[] people;
+    private final String[] names;
+    private final String[][] words;
+    private final Map<String, BitSet> exact = new HashMap<>();
+    private final Map<String, BitSet> trigrams = new HashMap<>();
+    private final TrieNode root = new TrieNode();
+    private final int maxFuzzyResults;
+
+    PeopleNameIndex(Collection<CachedPeople> people, int maxFuzzyResults) {
+        this.people = people.toArray(CachedPeople[]::new);
+        this.names = new String[this.people.length];
+        this.words = new String[this.people.length][];
+        this.maxFuzzyResults = maxFuzzyResults;
+        for (int i = 0; i < this.people.length; ++i) {
+            final var name = normalize(this.people[i].name());
+            names[i] = name;
+            words[i] = name.isEmpty() ? new String[0] : name.split(" ");
+            exact.computeIfAbsent(name, k -> new BitSet()).set(i);
+            for (final var w : words[i]) {
+                root.add(w, i);
+            }
+            final var padded = " " + name + " ";
+            for (int j = 0; j + 3 <= padded.length(); ++j) {
+                trigrams.computeIfAbsent(padded.substring(j, j + 3), k -> new BitSet()).set(i);
+            }
+        }
+    }
+
+    int size() {
+        return people.length;
+    }
+
+    /**
+     * Search people ids by name, best matches first.
+     */
+    int[] search(String query) {
+        final var q = normalize(query);
+        if (q.isEmpty()) {
+            // Like SWAPI: an empty search matches everyone.
+            return ids(all());
+        }
+
+        final var matches = new ArrayList<Integer>();
+        final var seen = new BitSet(people.length);
+        collect(exact.get(q), matches, seen);
+        collect(prefixMatches(q), matches, seen);
+        collect(substringMatches(q), matches, seen);
+        if (matches.isEmpty()) {
+            matches.addAll(fuzzyMatches(q));
+        }
+        return matches.stream().mapToInt(i -> people[i].id()).toArray();
+    }
+
+    static String normalize(String s) {
+        if (s == null) {
+            return "";
+        }
+        final var decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+        final var stripped = MARKS.matcher(decomposed).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private BitSet all() {
+        final var all = new BitSet(people.length);
+        all.set(0, people.length);
+        return all;
+    }
+
+    private int[] ids(BitSet positions) {
+        return positions.stream().map(i -> people[i].id()).toArray();
+    }
+
+    private static void collect(BitSet positions, List<Integer> matches, BitSet seen) {
+        if (positions == null) {
+            return;
+        }
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            if (!seen.get(i)) {
+                seen.set(i);
+                matches.add(i);
+            }
+        }
+    }
+
+    /**
+     * Every query word must be a prefix of a name word.
+     */
+    private BitSet prefixMatches(String q) {
+        BitSet result = null;
+        for (final var w : q.split(" ")) {
+            final var node = root.find(w);
+            if (node == null) {
+                return null;
+            }
+            if (result == null) {
+                result = (BitSet) node.positions.clone();
+            } else {
+                result.and(node.positions);
+            }
+        }
+        return result;
+    }
+
+    private BitSet substringMatches(String q) {
+        // Queries shorter than a trigram are checked against every name.
+        final var candidates = all();
+        for (int j = 0; j + 3 <= q.length(); ++j) {
+            final var postings = trigrams.get(q.substring(j, j + 3));
+            if (postings == null) {
+                return null;
+            }
+            candidates.and(postings);
+        }
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (!names[i].contains(q)) {
+                candidates.clear(i);
+            }
+        }
+        return candidates;
+    }
+
+    private List<Integer> fuzzyMatches(String q) {
+        final var candidates = new BitSet(people.length);
+        final var padded = " " + q + " ";
+        for (int j = 0; j + 3 <= padded.length(); ++j) {
+            final var postings = trigrams.get(padded.substring(j, j + 3));
+            if (postings != null) {
+                candidates.or(postings);
+            }
+        }
+
+        // A single word query is also compared with each name word ("vadr" vs "darth vader").
+        final var singleWord = q.indexOf(' ') == -1;
+        final var scored = new ArrayList<Scored>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            var best = similarity(q, names[i]);
+            if (singleWord) {
+                for (final var w : words[i]) {
+                    best = Math.max(best, similarity(q, w));
+                }
+            }
+            if (best >= MIN_SIMILARITY) {
+                scored.add(new Scored(i, best));
+            }
+        }
+        return scored.stream()
+                .sorted(Comparator.comparingDouble(Scored::score).reversed().thenComparingInt(Scored::position))
+                .limit(maxFuzzyResults)
+                .map(Scored::position)
+                .toList();
+    }
+
+    private static double similarity(String a, String b) {
+        final var len = Math.max(a.length(), b.length());
+        return len == 0 ? 1 : 1 - (double) editDistance(a, b) / len;
+    }
+
+    private static int editDistance(String a, String b) {
+        var prev = new int[b.length() + 1];
+        var cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); ++j) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); ++i) {
+            cur[0] = i;
+            for (int j = 1; j <= b.length(); ++j) {
+                final var cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            final var tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return prev[b.length()];
+    }
+
+    private record Scored(int position, double score) {
+    }
+
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>(4);
+        private final BitSet positions = new BitSet();
+
+        void add(String word, int position) {
+            var node = this;
+            for (int i = 0; i < word.length(); ++i) {
+                node = node.children.computeIfAbsent(word.charAt(i), k -> new TrieNode());
+                node.positions.set(position);
+            }
+        }
+
+        TrieNode find(String prefix) {
+            var node = this;
+            for (int i = 0; i < prefix.length() && node != null; ++i) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains a {@link PeopleNameIndex} over every people, so that searches by name are answered in-process.
+ * <p>
+ * The index is built in the background at startup by walking the paginated people collection,
+ * and periodically rebuilt. People entities are written to the cache on the way.
+ * Until the first build succeeds, searches fall back to SWAPI.
+ */
+@Component
+@Profile("!fake & !snapshot & !reactive")
+@ConditionalOnProperty(name = "app.swapi.nameIndex.enabled", havingValue = "true", matchIfMissing = true)
+class PeopleNameIndexer implements InitializingBean, DisposableBean {
+    private final Logger logger = LoggerFactory.getLogger(PeopleNameIndexer.class);
+    private final Swapi api;
+    private final SwapiPageReader pages;
+    private final StarWarsServiceHelper helper;
+    private final Duration refreshInterval;
+    private final int maxFuzzyResults;
+    private final ObservationRegistry reg;
+    private volatile PeopleNameIndex index;
+    private ScheduledExecutorService scheduler;
+
+    PeopleNameIndexer(Swapi api, SwapiPageReader pages, StarWarsServiceHelper helper,
+                      @Value("${app.swapi.nameIndex.refresh}") Duration refreshInterval,
+                      @Value("${app.swapi.nameIndex.maxFuzzyResults}") int maxFuzzyResults,
+                      ObservationRegistry reg, MeterRegistry meterRegistry) {
+        this.api = api;
+        this.pages = pages;
+        this.helper = helper;
+        this.refreshInterval = refreshInterval;
+        this.maxFuzzyResults = maxFuzzyResults;
+        this.reg = reg;
+        Gauge.builder("swai.people.index.size", this, PeopleNameIndexer::size)
+                .description("Number of people in the name index")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        final var threadFactory = new CustomizableThreadFactory("swapi-people-index-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.execute(this::refresh);
+        if (!refreshInterval.isZero() && !refreshInterval.isNegative()) {
+            scheduler.scheduleWithFixedDelay(this::refresh,
+                    refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Get the current index, or <code>null</code> if it has not been built yet.
+     */
+    @Nullable
+    PeopleNameIndex current() {
+        return index;
+    }
+
+    private int size() {
+        final var current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    void refresh() {
+        try {
+            final var newIndex = Observation.createNotStarted("refreshPeopleIndex", reg).observe(this::build);
+            index = newIndex;
+            logger.info("Indexed {} people names", newIndex.size());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh people name index", e);
+        }
+    }
+
+    private PeopleNameIndex build() {
+        logger.debug("Building people name index");
+        try (final var people = pages.stream(api::findAllPeople, api::findAllPeople)) {
+            return new PeopleNameIndex(helper.cachePeople(people.toList()), maxFuzzyResults);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking cache backed by Redis.
+ * <p>
+ * Cache errors are logged and ignored: values are then loaded from the source.
+ */
+class ReactiveCache {
+    private final Logger logger = LoggerFactory.getLogger(ReactiveCache.class);
+    private final ReactiveRedisTemplate<String, Object> redis;
+    private final String prefix;
+    private final Duration ttl;
+
+    ReactiveCache(ReactiveRedisTemplate<String, Object> redis, String prefix, Duration ttl) {
+        this.redis = redis;
+        this.prefix = prefix;
+        this.ttl = ttl;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> Mono<T> get(String cacheName, Object key, Supplier<Mono<T>> loader) {
+        final var redisKey = prefix + cacheName + "::" + key;
+        return redis.opsForValue().get(redisKey)
+                .map(value -> (T) value)
+                .onErrorResume(e -> {
+                    logger.warn("Failed to read key {} from cache {}", key, cacheName, e);
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> loader.get()
+                        .flatMap(value -> redis.opsForValue().set(redisKey, value, ttl)
+                                .onErrorResume(e -> {
+                                    logger.warn("Failed to write key {} to cache {}", key, cacheName, e);
+                                    return Mono.just(false);
+                                })
+                                .thenReturn(value))));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import reactor.core.publisher.Mono;
+
+/**
+ * Support for interceptors shared by {@link Swapi} and {@link ReactiveSwapi}.
+ * <p>
+ * A reactive call does nothing until it is subscribed: interceptors must apply their policy
+ * when the returned {@link Mono} is subscribed, and may subscribe to it several times (when retrying).
+ */
+final class ReactiveInvocations {
+    private ReactiveInvocations() {
+    }
+
+    /**
+     * Check if an invocation returns a {@link Mono}, and if it can be proceeded several times.
+     */
+    static boolean isReactive(MethodInvocation invocation) {
+        return invocation instanceof ProxyMethodInvocation
+                && Mono.class.equals(invocation.getMethod().getReturnType());
+    }
+
+    /**
+     * Proceed with a copy of an invocation each time the result is subscribed:
+     * the original invocation is left untouched.
+     */
+    static Mono<Object> proceed(MethodInvocation invocation) {
+        final var pmi = (ProxyMethodInvocation) invocation;
+        return Mono.defer(() -> {
+            try {
+                @SuppressWarnings("unchecked") final var result = (Mono<Object>) pmi.invocableClone().proceed();
+                return result;
+            } catch (Throwable e) {
+                return Mono.error(e);
+            }
+        });
+    }
+}
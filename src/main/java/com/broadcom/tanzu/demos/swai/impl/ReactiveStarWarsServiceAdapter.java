@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.FilmCharacters;
+import com.broadcom.tanzu.demos.swai.FilmPlanets;
+import com.broadcom.tanzu.demos.swai.People;
+import com.broadcom.tanzu.demos.swai.Planet;
+import com.broadcom.tanzu.demos.swai.ReactiveStarWarsService;
+import com.broadcom.tanzu.demos.swai.StarWarsService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Blocking {@link StarWarsService} on top of {@link ReactiveStarWarsService}:
+ * function callbacks invoked by the chat client are synchronous.
+ * Never use this service from an event loop thread.
+ */
+@Service
+@Profile("reactive")
+class ReactiveStarWarsServiceAdapter implements StarWarsService {
+    private final ReactiveStarWarsService delegate;
+
+    ReactiveStarWarsServiceAdapter(ReactiveStarWarsService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Film> findFilms() {
+        return block(delegate.findFilms());
+    }
+
+    @Override
+    public List<Planet> findPlanets() {
+        return block(delegate.findPlanets());
+    }
+
+    @Override
+    public List<Planet> findPlanetsByFilm(int filmId) {
+        return block(delegate.findPlanetsByFilm(filmId));
+    }
+
+    @Override
+    public List<People> findCharactersByFilm(int filmId) {
+        return block(delegate.findCharactersByFilm(filmId));
+    }
+
+    @Override
+    public List<People> findResidentsByPlanet(int planetId) {
+        return block(delegate.findResidentsByPlanet(planetId));
+    }
+
+    @Override
+    public List<People> findCharactersByName(String name) {
+        return block(delegate.findCharactersByName(name));
+    }
+
+    @Override
+    public List<People> findPeopleByIds(int[] peopleIds) {
+        return block(delegate.findPeopleByIds(peopleIds));
+    }
+
+    @Override
+    public List<Planet> findPlanetsByIds(int[] planetIds) {
+        return block(delegate.findPlanetsByIds(planetIds));
+    }
+
+    @Override
+    public List<FilmCharacters> findCharactersByFilms(int[] filmIds) {
+        return block(delegate.findCharactersByFilms(filmIds));
+    }
+
+    @Override
+    public List<FilmPlanets> findPlanetsByFilms(int[] filmIds) {
+        return block(delegate.findPlanetsByFilms(filmIds));
+    }
+
+    @Override
+    public List<Film> findFilmsByCharacter(int peopleId) {
+        return block(delegate.findFilmsByCharacter(peopleId));
+    }
+
+    @Override
+    public List<Film> findFilmsByPlanet(int planetId) {
+        return block(delegate.findFilmsByPlanet(planetId));
+    }
+
+    private static <T> List<T> block(Flux<T> flux) {
+        return flux.collectList().block();
+    }
+}
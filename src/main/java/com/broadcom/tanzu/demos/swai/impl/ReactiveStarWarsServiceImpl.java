@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.FilmCharacters;
+import com.broadcom.tanzu.demos.swai.FilmPlanets;
+import com.broadcom.tanzu.demos.swai.People;
+import com.broadcom.tanzu.demos.swai.Planet;
+import com.broadcom.tanzu.demos.swai.ReactiveStarWarsService;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+
+/**
+ * {@link ReactiveStarWarsService} implementation, using the same cache layout as {@link StarWarsServiceImpl}:
+ * entities are cached by id, and relationships are cached as id arrays.
+ */
+@Service
+@Profile("reactive")
+class ReactiveStarWarsServiceImpl implements ReactiveStarWarsService {
+    private final Logger logger = LoggerFactory.getLogger(ReactiveStarWarsServiceImpl.class);
+    private final ReactiveSwapi api;
+    private final ReactiveCache cache;
+    private final int concurrency;
+    private final ObservationRegistry reg;
+
+    ReactiveStarWarsServiceImpl(ReactiveSwapi api, ReactiveCache cache,
+                                @Value("${app.swapi.parallelism}") int concurrency, ObservationRegistry reg) {
+        this.api = api;
+        this.cache = cache;
+        this.concurrency = Math.max(1, concurrency);
+        this.reg = reg;
+    }
+
+    @Override
+    public Flux<Film> findFilms() {
+        return cache.get("films", "all", () -> readAll(api.findAllFilms(), api::findAllFilms)
+                        .map(f -> new Film(f.url().id(), f.title(), f.episodeId(), f.releaseDate()))
+                        .collectList())
+                .flatMapIterable(films -> films)
+                .name("findFilms")
+                .tap(Micrometer.observation(reg));
+    }
+
+    @Override
+    public Flux<Planet> findPlanets() {
+        return cache.get("planets", "all", () -> readAll(api.findAllPlanets(), api::findAllPlanets)
+                        .map(p -> new Planet(p.url().id(), p.name(), p.population()))
+                        .collectList())
+                .flatMapIterable(planets -> planets)
+                .name("findPlanets")
+                .tap(Micrometer.observation(reg));
+    }
+
+    @Override
+    public Flux<Planet> findPlanetsByFilm(int filmId) {
+        return film(filmId)
+                .flatMapMany(f -> planets(f.planets().toList()))
+                .doOnNext(p -> logger.debug("Found planet appearing in film {}: {}", filmId, p.name()))
+                .name("findPlanetsByFilm")
+                .tag("filmId", String.valueOf(filmId))
+                .tap(Micrometer.observation(reg));
+    }
+
+    @Override
+    public Flux<People> findCharactersByFilm(int filmId) {
+        return film(filmId)
+                .flatMapMany(f -> people(f.characters().toList()))
+                .doOnNext(p -> logger.debug("Found character appearing in film {}: {}", filmId, p.name()))
+                .name("findCharactersByFilm")
+                .tag("filmId", String.valueOf(filmId))
+                .tap(Micrometer.observation(reg));
+    }
+
+    @Override
+    public Flux<People> findResidentsByPlanet(int planetId) {
+        return cache.get("residents-by-planet", planetId, () -> api.findPlanetById(planetId)
+                        .onErrorMap(WebClientResponseException.NotFound.class, e -> unknown("planet", planetId))
+                        .map(p -> p.residents().ids()))
+                .flatMapMany(ids -> people(Arrays.stream(ids).boxed().toList()))
+                .doOnNext(p -> logger.debug("Found resident from planet {}: {}", planetId, p.name()))
+                .name("findResidentsByPlanet")
+                .tag("planetId", String.valueOf(planetId))
+                .tap(Micrometer.observation(reg));
+    }
+
+    @Override
+    public Flux<People> findCharactersByName(String name) {
+        return cache.get("characters", name, () -> readAll(api.findPeopleByName(name), page -> api.findPeopleByName(name, page))
+                        .map(p -> p.url().id())
+                        .collectList()
+                        .map(ids -> ids.stream().mapToInt(Integer::intValue).toArray()))
+                .flatMapMany(ids -> people(Arrays.stream(ids).boxed().toList()))
+                .doOnNext(p -> logger.debug("Found character with name {}: {}", name, p.name()))
+                .name("findCharactersByName")
+                .tag("name", name)
+                .tap(Micrometer.observation(reg));
+    }
+
+    @Override
+    public Flux<People> findPeopleByIds(int[] peopleIds) {
+        return people(Arrays.stream(peopleIds).boxed().toList())
+                .name("findPeopleByIds")
+                .tap(Micrometer.observation(reg));
+    }
+
+    @Override
+    public Flux<Planet> findPlanetsByIds(int[] planetIds) {
+        return planets(Arrays.stream(planetIds).boxed().toList())
+                .name("findPlanetsByIds")
+                .tap(Micrometer.observation(reg));
+    }
+
+    @Override
+    public Flux<FilmCharacters> findCharactersByFilms(int[] filmIds) {
+        return byFilms(filmIds, f -> f.characters().ids(), this::people, People::id, FilmCharacters::new)
+                .name("findCharactersByFilms")
+                .tap(Micrometer.observation(reg));
+    }
+
+    @Override
+    public Flux<FilmPlanets> findPlanetsByFilms(int[] filmIds) {
+        return byFilms(filmIds, f -> f.planets().ids(), this::planets, Planet::id, FilmPlanets::new)
+                .name("findPlanetsByFilms")
+                .tap(Micrometer.observation(reg));
+    }
+
+    /**
+     * Resolve entities related to several films: entities shared by several films are resolved once.
+     */
+    private <T, R> Flux<R> byFilms(int[] filmIds, Function<SwapiFilm, int[]> idsOf,
+                                   Function<Collection<Integer>, Flux<T>> resolver, Function<T, Integer> idOf,
+                                   BiFunction<Integer, List<T>, R> result) {
+        return Flux.fromIterable(Arrays.stream(filmIds).boxed().toList())
+                .flatMapSequential(this::film, concurrency)
+                .map(idsOf)
+                .collectList()
+                .flatMapMany(idsByFilm -> {
+                    final var ids = new LinkedHashSet<Integer>();
+                    for (final var filmEntityIds : idsByFilm) {
+                        Arrays.stream(filmEntityIds).forEach(ids::add);
+                    }
+                    return resolver.apply(ids)
+                            .collectMap(idOf)
+                            .flatMapIterable(entitiesById -> {
+                                final var results = new ArrayList<R>(filmIds.length);
+                                for (int i = 0; i < filmIds.length; ++i) {
+                                    final var entities = Arrays.stream(idsByFilm.get(i))
+                                            .mapToObj(entitiesById::get).toList();
+                                    results.add(result.apply(filmIds[i], entities));
+                                }
+                                return results;
+                            });
+                });
+    }
+
+    @Override
+    public Flux<Film> findFilmsByCharacter(int peopleId) {
+        return filmsMatching(f -> f.characters().contains(peopleId))
+                .name("findFilmsByCharacter")
+                .tag("peopleId", String.valueOf(peopleId))
+                .tap(Micrometer.observation(reg));
+    }
+
+    @Override
+    public Flux<Film> findFilmsByPlanet(int planetId) {
+        return filmsMatching(f -> f.planets().contains(planetId))
+                .name("findFilmsByPlanet")
+                .tag("planetId", String.valueOf(planetId))
+                .tap(Micrometer.observation(reg));
+    }
+
+    /**
+     * Scan every film: there are only a handful of them, and each one is cached.
+     */
+    private Flux<Film> filmsMatching(Predicate<SwapiFilm> filter) {
+        return findFilms()
+                .flatMapSequential(f -> film(f.id()).filter(filter).map(sf -> f), concurrency);
+    }
+
+    private Mono<SwapiFilm> film(int filmId) {
+        return cache.get("films", filmId, () -> api.findFilmById(filmId)
+                .onErrorMap(WebClientResponseException.NotFound.class, e -> unknown("film", filmId)));
+    }
+
+    private Mono<Planet> planet(int planetId) {
+        return cache.get("planets", planetId, () -> api.findPlanetById(planetId)
+                .onErrorMap(WebClientResponseException.NotFound.class, e -> unknown("planet", planetId))
+                .map(p -> new Planet(planetId, p.name(), p.population())));
+    }
+
+    private Flux<Planet> planets(Collection<Integer> planetIds) {
+        return Flux.fromIterable(planetIds).flatMapSequential(this::planet, concurrency);
+    }
+
+    private Flux<People> people(Collection<Integer> peopleIds) {
+        return Flux.fromIterable(peopleIds).flatMapSequential(id -> cache.get("people", id, () -> api.findPeopleById(id)
+                        .onErrorMap(WebClientResponseException.NotFound.class, e -> unknown("people", id))
+                        .map(p -> new CachedPeople(id, p.name(), p.homeworld().id())))
+                .flatMap(p -> planet(p.homeworldId()).map(homeworld -> new People(p.id(), p.name(), homeworld))), concurrency);
+    }
+
+    /**
+     * Read every page of a SWAPI collection: remaining pages are fetched concurrently,
+     * once the item count is known from the first page.
+     */
+    private <T> Flux<T> readAll(Mono<? extends SwapiPage<T>> first, IntFunction<Mono<? extends SwapiPage<T>>> pageFetcher) {
+        return first.flatMapMany(page -> {
+            final var pageSize = page.results().size();
+            if (page.next() == null || pageSize == 0) {
+                return Flux.fromIterable(page.results());
+            }
+            final var pageCount = (page.count() + pageSize - 1) / pageSize;
+            return Flux.fromIterable(page.results())
+                    .concatWith(Flux.range(2, pageCount - 1)
+                            .flatMapSequential(pageFetcher::apply, concurrency)
+                            .flatMapIterable(SwapiPage::results));
+        });
+    }
+
+    private static IllegalArgumentException unknown(String resourceName, int id) {
+        return new IllegalArgumentException("Unknown " + resourceName + " id: " + id);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.support.WebClientAdapter;
+import org.springframework.web.service.invoker.HttpServiceProxyFactory;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+class ReactiveSwapiConfig {
+    @Bean
+    ReactiveSwapi reactiveSwapi(@Value("${spring.application.name}") String appName,
+                                @Value("${app.swapi.url}") String swapiUrl,
+                                @Value("${app.swapi.connectTimeout}") Duration connectTimeout,
+                                @Value("${app.swapi.readTimeout}") Duration readTimeout,
+                                @Value("${app.swapi.pool.maxTotal:64}") int poolMaxTotal,
+                                @Value("${app.swapi.pool.idleTimeout:1m}") Duration poolIdleTimeout,
+                                ObjectMapper om,
+                                WebClient.Builder clientBuilder,
+                                ObjectProvider<CircuitBreakerInterceptor> breaker,
+                                ObjectProvider<RetryInterceptor> retry,
+                                ObjectProvider<AdaptiveLimiterInterceptor> limiter) {
+        final var connections = ConnectionProvider.builder("swapi")
+                .maxConnections(poolMaxTotal)
+                .maxIdleTime(poolIdleTimeout)
+                .metrics(true)
+                .build();
+        final var httpClient = HttpClient.create(connections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout)
+                .compress(true);
+        final var client = clientBuilder.baseUrl(swapiUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.USER_AGENT, appName)
+                .codecs(codecs -> codecs.defaultCodecs().jackson2JsonDecoder(
+                        new Jackson2JsonDecoder(SwapiJacksonModule.swapiObjectMapper(om))))
+                .build();
+        final var api = HttpServiceProxyFactory.builderFor(WebClientAdapter.create(client))
+                .build()
+                .createClient(ReactiveSwapi.class);
+
+        // Same resilience policies (and state) as the blocking client, invoked in this order.
+        // Hedging is left out: it relies on blocking threads.
+        final var pf = new ProxyFactory(api);
+        pf.addInterface(ReactiveSwapi.class);
+        breaker.ifAvailable(pf::addAdvice);
+        retry.ifAvailable(pf::addAdvice);
+        limiter.ifAvailable(pf::addAdvice);
+        return (ReactiveSwapi) pf.getProxy(ReactiveSwapi.class.getClassLoader());
+    }
+
+    @Bean
+    ReactiveCache reactiveCache(ReactiveRedisConnectionFactory connectionFactory,
+                                RedisCacheConfiguration cacheConfiguration,
+                                @Value("${app.cache.ttl}") Duration cacheTtl) {
+        // Reuse the value serializer from the blocking cache.
+        final var context = RedisSerializationContext.<String, Object>newSerializationContext(RedisSerializer.string())
+                .value(cacheConfiguration.getValueSerializationPair())
+                .build();
+        return new ReactiveCache(new ReactiveRedisTemplate<>(connectionFactory, context), "reactive::", cacheTtl);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Multi-key operations on a {@link RedisCache}, using the same key and value encoding:
+ * values are read with a single <code>MGET</code>, and written in a single pipeline.
+ * Values which cannot be decoded are skipped, as cache misses.
+ */
+class RedisBatchOperations {
+    private final Logger logger = LoggerFactory.getLogger(RedisBatchOperations.class);
+    private final RedisConnectionFactory connectionFactory;
+
+    RedisBatchOperations(RedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    Map<Object, Object> getAll(RedisCache cache, Collection<?> keys) {
+        final var orderedKeys = new ArrayList<Object>(keys);
+        final var redisKeys = new byte[orderedKeys.size()][];
+        for (int i = 0; i < redisKeys.length; ++i) {
+            redisKeys[i] = redisKey(cache, orderedKeys.get(i));
+        }
+
+        final var values = new LinkedHashMap<Object, Object>(orderedKeys.size() * 2);
+        try (final var conn = connectionFactory.getConnection()) {
+            final var rawValues = conn.stringCommands().mGet(redisKeys);
+            if (rawValues == null) {
+                return values;
+            }
+            final var valuePair = cache.getCacheConfiguration().getValueSerializationPair();
+            for (int i = 0; i < rawValues.size(); ++i) {
+                final var raw = rawValues.get(i);
+                if (raw == null) {
+                    continue;
+                }
+                try {
+                    values.put(orderedKeys.get(i), valuePair.read(ByteBuffer.wrap(raw)));
+                } catch (SerializationException e) {
+                    logger.warn("Ignoring undecodable value for key {} in cache {}", orderedKeys.get(i), cache.getName(), e);
+                }
+            }
+        }
+        return values;
+    }
+
+    void putAll(RedisCache cache, Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        final var config = cache.getCacheConfiguration();
+        try (final var conn = connectionFactory.getConnection()) {
+            conn.openPipeline();
+            try {
+                for (final var e : entries.entrySet()) {
+                    final var ttl = config.getTtlFunction().getTimeToLive(e.getKey(), e.getValue());
+                    final var expiration = ttl.isZero() || ttl.isNegative() ? Expiration.persistent() : Expiration.from(ttl);
+                    conn.stringCommands().set(redisKey(cache, e.getKey()),
+                            ByteUtils.getBytes(config.getValueSerializationPair().write(e.getValue())),
+                            expiration, SetOption.upsert());
+                }
+            } finally {
+                conn.closePipeline();
+            }
+        }
+    }
+
+    private static byte[] redisKey(RedisCache cache, Object key) {
+        final var config = cache.getCacheConfiguration();
+        final var k = key instanceof String s ? s : config.getConversionService().convert(key, String.class);
+        final var prefixed = config.usePrefix() ? config.getKeyPrefixFor(cache.getName()) + k : k;
+        return ByteUtils.getBytes(config.getKeySerializationPair().write(prefixed));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Relationships between films, planets and people, indexed in both directions.
+ * <p>
+ * Each relation is stored in compressed sparse row form, keyed by entity id (SWAPI ids are dense):
+ * the targets of a source id are <code>targets[offsets[id]..offsets[id + 1]]</code>.
+ * Reverse lookups (films of a character, films of a planet) are then as cheap as forward lookups.
+ */
+final class RelationshipIndex {
+    private final Relation planetsByFilm;
+    private final Relation charactersByFilm;
+    private final Relation residentsByPlanet;
+
+    RelationshipIndex(Map<Integer, int[]> planetIdsByFilm,
+                      Map<Integer, int[]> characterIdsByFilm,
+                      Map<Integer, int[]> residentIdsByPlanet) {
+        this.planetsByFilm = Relation.of(planetIdsByFilm);
+        this.charactersByFilm = Relation.of(characterIdsByFilm);
+        this.residentsByPlanet = Relation.of(residentIdsByPlanet);
+    }
+
+    /**
+     * Get planet ids appearing in a film, or <code>null</code> if this film is unknown.
+     */
+    @Nullable
+    int[] planetsByFilm(int filmId) {
+        return planetsByFilm.targets(filmId);
+    }
+
+    int[] filmsByPlanet(int planetId) {
+        return planetsByFilm.sources(planetId);
+    }
+
+    /**
+     * Get people ids appearing in a film, or <code>null</code> if this film is unknown.
+     */
+    @Nullable
+    int[] charactersByFilm(int filmId) {
+        return charactersByFilm.targets(filmId);
+    }
+
+    int[] filmsByCharacter(int peopleId) {
+        return charactersByFilm.sources(peopleId);
+    }
+
+    /**
+     * Get people ids living on a planet, or <code>null</code> if this planet is unknown.
+     */
+    @Nullable
+    int[] residentsByPlanet(int planetId) {
+        return residentsByPlanet.targets(planetId);
+    }
+
+    /**
+     * One relation, with forward and reverse adjacency arrays.
+     */
+    static final class Relation {
+        private static final int[] NONE = new int[0];
+
+        private final BitSet sourceIds;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] reverseOffsets;
+        private final int[] sources;
+
+        private Relation(BitSet sourceIds, int[] offsets, int[] targets, int[] reverseOffsets, int[] sources) {
+            this.sourceIds = sourceIds;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.reverseOffsets = reverseOffsets;
+            this.sources = sources;
+        }
+
+        static Relation of(Map<Integer, int[]> adjacency) {
+            final var sourceIds = new BitSet();
+            var edgeCount = 0;
+            var maxTarget = -1;
+            for (final var e : adjacency.entrySet()) {
+                sourceIds.set(e.getKey());
+                edgeCount += e.getValue().length;
+                for (final var t : e.getValue()) {
+                    maxTarget = Math.max(maxTarget, t);
+                }
+            }
+
+            // Forward edges, in source id order.
+            final var maxSource = sourceIds.length() - 1;
+            final var offsets = new int[maxSource + 2];
+            final var targets = new int[edgeCount];
+            for (int s = 0, pos = 0; s <= maxSource; ++s) {
+                offsets[s] = pos;
+                final var ids = adjacency.get(s);
+                if (ids != null) {
+                    System.arraycopy(ids, 0, targets, pos, ids.length);
+                    pos += ids.length;
+                }
+            }
+            offsets[maxSource + 1] = edgeCount;
+
+            // Reverse edges: counting sort of forward edges by target id.
+            final var reverseOffsets = new int[maxTarget + 2];
+            for (final var t : targets) {
+                reverseOffsets[t + 1] += 1;
+            }
+            for (int t = 0; t <= maxTarget; ++t) {
+                reverseOffsets[t + 1] += reverseOffsets[t];
+            }
+            final var sources = new int[edgeCount];
+            final var next = Arrays.copyOf(reverseOffsets, maxTarget + 1);
+            for (int s = 0; s <= maxSource; ++s) {
+                for (int i = offsets[s]; i < offsets[s + 1]; ++i) {
+                    sources[next[targets[i]]++] = s;
+                }
+            }
+            return new Relation(sourceIds, offsets, targets, reverseOffsets, sources);
+        }
+
+        @Nullable
+        int[] targets(int sourceId) {
+            if (sourceId < 0 || !sourceIds.get(sourceId)) {
+                return null;
+            }
+            return Arrays.copyOfRange(targets, offsets[sourceId], offsets[sourceId + 1]);
+        }
+
+        int[] sources(int targetId) {
+            if (targetId < 0 || targetId + 1 >= reverseOffsets.length) {
+                return NONE;
+            }
+            return Arrays.copyOfRange(sources, reverseOffsets[targetId], reverseOffsets[targetId + 1]);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains a {@link RelationshipIndex} for {@link StarWarsServiceImpl}, built from the SWAPI film and
+ * planet collections (see {@link StarWarsSnapshotLoader#loadRelationships()}): relationship lookups no longer need a film or planet resource,
+ * and reverse lookups no longer need to scan every film.
+ * <p>
+ * The index is built in the background at startup, and periodically rebuilt.
+ * Until the first build succeeds, relationships are read from SWAPI resources.
+ * When the index is disabled, it is never built.
+ */
+@Component
+@Profile("!fake & !snapshot & !reactive")
+class RelationshipIndexer implements InitializingBean, DisposableBean {
+    private final Logger logger = LoggerFactory.getLogger(RelationshipIndexer.class);
+    private final StarWarsSnapshotLoader loader;
+    private final Duration refreshInterval;
+    private final boolean enabled;
+    private final ObservationRegistry reg;
+    private volatile RelationshipIndex index;
+    private ScheduledExecutorService scheduler;
+
+    RelationshipIndexer(StarWarsSnapshotLoader loader,
+                        @Value("${app.swapi.relationshipIndex.refresh}") Duration refreshInterval,
+                        @Value("${app.swapi.relationshipIndex.enabled:true}") boolean enabled,
+                        ObservationRegistry reg) {
+        this.loader = loader;
+        this.refreshInterval = refreshInterval;
+        this.enabled = enabled;
+        this.reg = reg;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        final var threadFactory = new CustomizableThreadFactory("swapi-relationship-index-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.execute(this::refresh);
+        if (!refreshInterval.isZero() && !refreshInterval.isNegative()) {
+            scheduler.scheduleWithFixedDelay(this::refresh,
+                    refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Get the current index, or <code>null</code> if it has not been built yet or if it is disabled.
+     */
+    @Nullable
+    RelationshipIndex current() {
+        return index;
+    }
+
+    void refresh() {
+        try {
+            index = Observation.createNotStarted("refreshRelationshipIndex", reg)
+                    .observe(loader::loadRelationships);
+            logger.info("Indexed Star Wars relationships");
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh relationship index", e);
+        }
+    }
+}
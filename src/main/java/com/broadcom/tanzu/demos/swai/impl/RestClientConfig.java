@@ -16,30 +16,122 @@
 
 package com.broadcom.tanzu.demos.swai.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.ClientHttpRequestFactories;
 import org.springframework.boot.web.client.ClientHttpRequestFactorySettings;
+import org.springframework.boot.web.client.RestClientCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
 import java.time.Duration;
 
 @Configuration(proxyBeanMethods = false)
 class RestClientConfig {
+    private final Logger logger = LoggerFactory.getLogger(RestClientConfig.class);
+
+    /**
+     * Apache HttpClient is on the classpath for the SWAPI client only:
+     * keep other clients built by Spring Boot on the JDK <code>HttpURLConnection</code>,
+     * instead of letting Spring Boot switch them to Apache HttpClient.
+     */
+    @Bean
+    RestClientCustomizer defaultRequestFactoryCustomizer() {
+        return builder -> builder.requestFactory(ClientHttpRequestFactories.get(
+                SimpleClientHttpRequestFactory.class, ClientHttpRequestFactorySettings.DEFAULTS));
+    }
+
     @Bean
     RestClient restClient(@Value("${spring.application.name}") String appName,
                           @Value("${app.swapi.url}") String swapiUrl,
-                          @Value("${app.swapi.connectTimeout}") Duration connectTimeout,
-                          @Value("${app.swapi.readTimeout}") Duration readTimeout,
+                          @Value("${app.swapi.client:default}") String clientMode,
+                          ClientHttpRequestFactory swapiRequestFactory,
+                          ObjectMapper om,
                           RestClient.Builder clientBuilder) {
-        return clientBuilder.baseUrl(swapiUrl)
-                .requestFactory(ClientHttpRequestFactories.get(
-                        ClientHttpRequestFactorySettings.DEFAULTS
-                                .withConnectTimeout(connectTimeout)
-                                .withReadTimeout(readTimeout)))
-                .defaultHeader(HttpHeaders.USER_AGENT, appName)
-                .build();
+        final var swapiConverter = new MappingJackson2HttpMessageConverter(SwapiJacksonModule.swapiObjectMapper(om));
+        clientBuilder.baseUrl(swapiUrl)
+                .requestFactory(swapiRequestFactory)
+                .messageConverters(converters -> {
+                    converters.removeIf(MappingJackson2HttpMessageConverter.class::isInstance);
+                    converters.add(swapiConverter);
+                })
+                .defaultHeader(HttpHeaders.USER_AGENT, appName);
+        if ("http2".equals(clientMode)) {
+            clientBuilder.requestInterceptor(new GzipResponseInterceptor());
+        }
+        return clientBuilder.build();
+    }
+
+    /**
+     * Create the HTTP client used to reach SWAPI, depending on <code>app.swapi.client</code>:
+     * <ul>
+     *     <li><code>default</code>: JDK <code>HttpURLConnection</code> with default settings</li>
+     *     <li><code>pooled</code>: Apache HttpClient with a bounded pool of keep-alive connections per route,
+     *     and gzip / deflate compression</li>
+     *     <li><code>http2</code>: JDK HttpClient negotiating HTTP/2, multiplexing requests over a single connection,
+     *     and gzip compression</li>
+     * </ul>
+     */
+    @Bean
+    ClientHttpRequestFactory swapiRequestFactory(@Value("${app.swapi.client:default}") String clientMode,
+                                                 @Value("${app.swapi.connectTimeout}") Duration connectTimeout,
+                                                 @Value("${app.swapi.readTimeout}") Duration readTimeout,
+                                                 @Value("${app.swapi.pool.maxTotal:64}") int poolMaxTotal,
+                                                 @Value("${app.swapi.pool.maxPerRoute:32}") int poolMaxPerRoute,
+                                                 @Value("${app.swapi.pool.timeToLive:5m}") Duration poolTimeToLive,
+                                                 @Value("${app.swapi.pool.idleTimeout:1m}") Duration poolIdleTimeout,
+                                                 MeterRegistry meterRegistry) {
+        logger.info("Using SWAPI client: {}", clientMode);
+        return switch (clientMode) {
+            case "default" -> ClientHttpRequestFactories.get(SimpleClientHttpRequestFactory.class,
+                    ClientHttpRequestFactorySettings.DEFAULTS
+                            .withConnectTimeout(connectTimeout)
+                            .withReadTimeout(readTimeout));
+            case "pooled" -> {
+                final var cm = PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(poolMaxTotal)
+                        .setMaxConnPerRoute(poolMaxPerRoute)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.of(connectTimeout))
+                                .setSocketTimeout(Timeout.of(readTimeout))
+                                .setTimeToLive(TimeValue.of(poolTimeToLive))
+                                .build())
+                        .build();
+                new PoolingHttpClientConnectionManagerMetricsBinder(cm, "swapi").bindTo(meterRegistry);
+                final var client = HttpClients.custom()
+                        .setConnectionManager(cm)
+                        .evictExpiredConnections()
+                        .evictIdleConnections(TimeValue.of(poolIdleTimeout))
+                        .build();
+                yield new HttpComponentsClientHttpRequestFactory(client);
+            }
+            case "http2" -> {
+                final var client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(connectTimeout)
+                        .build();
+                final var factory = new JdkClientHttpRequestFactory(client);
+                factory.setReadTimeout(readTimeout);
+                yield factory;
+            }
+            default -> throw new IllegalArgumentException("Unsupported SWAPI client: " + clientMode);
+        };
     }
 }
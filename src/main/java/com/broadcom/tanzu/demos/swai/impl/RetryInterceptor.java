@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retries calls failing with a transient error, with an exponential backoff and full jitter.
+ * <p>
+ * Retries are limited by a budget: every call earns a fraction of a retry, and a retry costs a full one.
+ * During an outage the budget is quickly exhausted, so that retries never amplify the load on SWAPI.
+ * <p>
+ * Reactive calls are resubscribed after a non-blocking delay, with the same policy and budget.
+ */
+class RetryInterceptor implements MethodInterceptor {
+    private static final long TOKEN = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(RetryInterceptor.class);
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long tokensPerCall;
+    private final long maxTokens;
+    private final AtomicLong tokens;
+    private final Counter retries;
+    private final Counter budgetExhausted;
+    private final Sleeper sleeper;
+
+    RetryInterceptor(String name, int maxAttempts, Duration initialBackoff, Duration maxBackoff, double budget,
+                     MeterRegistry meterRegistry) {
+        this(name, maxAttempts, initialBackoff, maxBackoff, budget, meterRegistry, Thread::sleep);
+    }
+
+    RetryInterceptor(String name, int maxAttempts, Duration initialBackoff, Duration maxBackoff, double budget,
+                     MeterRegistry meterRegistry, Sleeper sleeper) {
+        this.sleeper = sleeper;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.tokensPerCall = Math.round(budget * TOKEN);
+        this.maxTokens = 10 * TOKEN;
+        this.tokens = new AtomicLong(maxTokens);
+        this.retries = Counter.builder("swai.calls.retried")
+                .description("Number of retried calls")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.budgetExhausted = Counter.builder("swai.calls.retry.rejected")
+                .description("Number of retries rejected because the retry budget is exhausted")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (ReactiveInvocations.isReactive(invocation)) {
+            return Mono.defer(() -> {
+                earnTokens();
+                return invokeReactive(invocation, 1);
+            });
+        }
+        earnTokens();
+        if (!(invocation instanceof ProxyMethodInvocation pmi)) {
+            return invocation.proceed();
+        }
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                return pmi.invocableClone().proceed();
+            } catch (Throwable e) {
+                if (attempt >= maxAttempts || !SwapiErrors.isTransient(e)) {
+                    throw e;
+                }
+                if (!tryAcquireRetry()) {
+                    budgetExhausted.increment();
+                    throw e;
+                }
+                final var backoff = backoffMillis(attempt);
+                logger.debug("Retrying call to {} in {} ms after a transient error: {}",
+                        invocation.getMethod().getName(), backoff, e.getMessage());
+                retries.increment();
+                try {
+                    sleeper.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    // Stop retrying: report the last error, keeping the interrupt flag.
+                    Thread.currentThread().interrupt();
+                    e.addSuppressed(ie);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Mono<Object> invokeReactive(MethodInvocation invocation, int attempt) {
+        return ReactiveInvocations.proceed(invocation).onErrorResume(e -> {
+            if (attempt >= maxAttempts || !SwapiErrors.isTransient(e)) {
+                return Mono.error(e);
+            }
+            if (!tryAcquireRetry()) {
+                budgetExhausted.increment();
+                return Mono.error(e);
+            }
+            final var backoff = backoffMillis(attempt);
+            logger.debug("Retrying call to {} in {} ms after a transient error: {}",
+                    invocation.getMethod().getName(), backoff, e.getMessage());
+            retries.increment();
+            return Mono.delay(Duration.ofMillis(backoff)).then(invokeReactive(invocation, attempt + 1));
+        });
+    }
+
+    private void earnTokens() {
+        tokens.accumulateAndGet(tokensPerCall, (t, inc) -> Math.min(maxTokens, t + inc));
+    }
+
+    private long backoffMillis(int attempt) {
+        return ThreadLocalRandom.current().nextLong(
+                Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20)) + 1);
+    }
+
+    private boolean tryAcquireRetry() {
+        while (true) {
+            final var t = tokens.get();
+            if (t < TOKEN) {
+                return false;
+            }
+            if (tokens.compareAndSet(t, t - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Actuator endpoint exporting the current snapshot to a binary file, or importing one:
+ * <code>POST /actuator/snapshot/export</code> and <code>POST /actuator/snapshot/import</code>.
+ * The file is always <code>app.snapshot.file</code>: callers cannot choose which file is read or written.
+ * <p>
+ * Importing replaces the data served by the application: this endpoint is not exposed over HTTP by default.
+ * Expose it on a management port which is not reachable by clients
+ * (<code>management.server.port</code> and <code>management.endpoints.web.exposure.include=health,snapshot</code>),
+ * or use JMX (<code>spring.jmx.enabled=true</code> and <code>management.endpoints.jmx.exposure.include=snapshot</code>).
+ */
+@Component
+@Profile("snapshot")
+@Endpoint(id = "snapshot")
+class SnapshotEndpoint {
+    private final SnapshotStarWarsService svc;
+
+    SnapshotEndpoint(SnapshotStarWarsService svc) {
+        this.svc = svc;
+    }
+
+    @ReadOperation
+    public Map<String, Object> snapshot() {
+        return describe(svc.currentSnapshot());
+    }
+
+    @WriteOperation
+    public Map<String, Object> execute(@Selector String command) throws IOException {
+        final var file = svc.snapshotFile();
+        if (file == null) {
+            throw new IllegalArgumentException("No snapshot file set");
+        }
+        return switch (command) {
+            case "export" -> {
+                svc.exportSnapshot(file);
+                yield describe(svc.currentSnapshot());
+            }
+            case "import" -> describe(svc.importSnapshot(file));
+            default -> throw new IllegalArgumentException("Unknown snapshot command: " + command);
+        };
+    }
+
+    private static Map<String, Object> describe(StarWarsSnapshot s) {
+        return Map.of(
+                "createdAt", s.createdAt(),
+                "films", s.films().size(),
+                "planets", s.planets().size(),
+                "people", s.people().size());
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.FilmCharacters;
+import com.broadcom.tanzu.demos.swai.FilmPlanets;
+import com.broadcom.tanzu.demos.swai.People;
+import com.broadcom.tanzu.demos.swai.Planet;
+import com.broadcom.tanzu.demos.swai.StarWarsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StarWarsService} implementation answering every query from an in-memory snapshot.
+ * The snapshot is loaded at startup, and periodically replaced in the background.
+ * When a snapshot file is configured, it is used to start without calling SWAPI,
+ * and it is rewritten after each successful refresh.
+ */
+@Service
+@Profile("snapshot")
+class SnapshotStarWarsService implements StarWarsService, InitializingBean, DisposableBean {
+    private final Logger logger = LoggerFactory.getLogger(SnapshotStarWarsService.class);
+    private final StarWarsSnapshotLoader loader;
+    private final Duration refreshInterval;
+    private final Path snapshotFile;
+    private volatile StarWarsSnapshot snapshot;
+    private ScheduledExecutorService scheduler;
+
+    SnapshotStarWarsService(StarWarsSnapshotLoader loader,
+                            @Value("${app.snapshot.refresh}") Duration refreshInterval,
+                            @Value("${app.snapshot.file:}") String snapshotFile) {
+        this.loader = loader;
+        this.refreshInterval = refreshInterval;
+        this.snapshotFile = StringUtils.hasText(snapshotFile) ? Path.of(snapshotFile) : null;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (snapshotFile != null && Files.isReadable(snapshotFile)) {
+            try {
+                snapshot = importSnapshot(snapshotFile);
+            } catch (IOException e) {
+                logger.warn("Failed to import Star Wars snapshot from {}", snapshotFile, e);
+            }
+        }
+        if (snapshot == null) {
+            snapshot = loader.load();
+            saveSnapshot(snapshot);
+        }
+        if (!refreshInterval.isZero() && !refreshInterval.isNegative()) {
+            final var threadFactory = new CustomizableThreadFactory("swapi-snapshot-");
+            threadFactory.setDaemon(true);
+            scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            scheduler.scheduleWithFixedDelay(this::refresh,
+                    refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void refresh() {
+        try {
+            final var newSnapshot = loader.load();
+            snapshot = newSnapshot;
+            logger.debug("Replaced Star Wars snapshot created at {}", newSnapshot.createdAt());
+            saveSnapshot(newSnapshot);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh Star Wars snapshot: keeping snapshot created at {}", snapshot.createdAt(), e);
+        }
+    }
+
+    StarWarsSnapshot currentSnapshot() {
+        return snapshot;
+    }
+
+    StarWarsSnapshot importSnapshot(Path file) throws IOException {
+        final var newSnapshot = StarWarsSnapshotFile.read(file);
+        snapshot = newSnapshot;
+        loader.track(newSnapshot);
+        logger.info("Imported Star Wars snapshot created at {} from {}", newSnapshot.createdAt(), file);
+        return newSnapshot;
+    }
+
+    void exportSnapshot(Path file) throws IOException {
+        final var current = snapshot;
+        StarWarsSnapshotFile.write(current, file);
+        logger.info("Exported Star Wars snapshot created at {} to {}", current.createdAt(), file);
+    }
+
+    Path snapshotFile() {
+        return snapshotFile;
+    }
+
+    private void saveSnapshot(StarWarsSnapshot s) {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            StarWarsSnapshotFile.write(s, snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Failed to write Star Wars snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    @Override
+    public List<Film> findFilms() {
+        return snapshot.films();
+    }
+
+    @Override
+    public List<Planet> findPlanets() {
+        return snapshot.planets();
+    }
+
+    @Override
+    public List<Planet> findPlanetsByFilm(int filmId) {
+        return snapshot.planetsByFilm(filmId);
+    }
+
+    @Override
+    public List<People> findCharactersByFilm(int filmId) {
+        return snapshot.charactersByFilm(filmId);
+    }
+
+    @Override
+    public List<People> findResidentsByPlanet(int planetId) {
+        return snapshot.residentsByPlanet(planetId);
+    }
+
+    @Override
+    public List<People> findCharactersByName(String name) {
+        return snapshot.charactersByName(name);
+    }
+
+    @Override
+    public List<People> findPeopleByIds(int[] peopleIds) {
+        return snapshot.peopleByIds(peopleIds);
+    }
+
+    @Override
+    public List<Planet> findPlanetsByIds(int[] planetIds) {
+        return snapshot.planetsByIds(planetIds);
+    }
+
+    @Override
+    public List<FilmCharacters> findCharactersByFilms(int[] filmIds) {
+        final var s = snapshot;
+        return Arrays.stream(filmIds).mapToObj(id -> new FilmCharacters(id, s.charactersByFilm(id))).toList();
+    }
+
+    @Override
+    public List<FilmPlanets> findPlanetsByFilms(int[] filmIds) {
+        final var s = snapshot;
+        return Arrays.stream(filmIds).mapToObj(id -> new FilmPlanets(id, s.planetsByFilm(id))).toList();
+    }
+
+    @Override
+    public List<Film> findFilmsByCharacter(int peopleId) {
+        return snapshot.filmsByCharacter(peopleId);
+    }
+
+    @Override
+    public List<Film> findFilmsByPlanet(int planetId) {
+        return snapshot.filmsByPlanet(planetId);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects changes in the Star Wars dataset when data is read from SWAPI resources
+ * (see {@link com.broadcom.tanzu.demos.swai.StarWarsDataChangedEvent}).
+ * <p>
+ * Every collection is periodically read to compute the version of the dataset, people included:
+ * with the snapshot profile, versions are tracked as snapshots are loaded instead.
+ * Tracking is disabled when the refresh interval is zero.
+ */
+@Component
+@Profile("!fake & !snapshot")
+class StarWarsDataVersionTracker implements InitializingBean, DisposableBean {
+    private final Logger logger = LoggerFactory.getLogger(StarWarsDataVersionTracker.class);
+    private final StarWarsSnapshotLoader loader;
+    private final Duration refreshInterval;
+    private final ObservationRegistry reg;
+    private ScheduledExecutorService scheduler;
+
+    StarWarsDataVersionTracker(StarWarsSnapshotLoader loader,
+                               @Value("${app.cache.datasetVersionRefresh}") Duration refreshInterval,
+                               ObservationRegistry reg) {
+        this.loader = loader;
+        this.refreshInterval = refreshInterval;
+        this.reg = reg;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (refreshInterval.isZero() || refreshInterval.isNegative()) {
+            return;
+        }
+        final var threadFactory = new CustomizableThreadFactory("swapi-version-tracker-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void refresh() {
+        try {
+            final var snapshot = Observation.createNotStarted("trackDataVersion", reg).observe(loader::load);
+            logger.debug("Tracked Star Wars data version: {}", snapshot.version());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to track Star Wars data version", e);
+        }
+    }
+}
@@ -16,26 +16,271 @@
 
 package com.broadcom.tanzu.demos.swai.impl;
 
+import com.broadcom.tanzu.demos.swai.People;
 import com.broadcom.tanzu.demos.swai.Planet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+
+/**
+ * Cached lookups.
+ * <p>
+ * Entities (films, planets, people) are cached once by id, whereas relationships are cached as id arrays:
+ * lists are assembled on read, so that an entity is shared by every list it belongs to.
+ * <p>
+ * Films and planets are cached with their validators:
+ * when such an entry expires, it is revalidated with a conditional GET instead of being downloaded again.
+ */
 @Component
 class StarWarsServiceHelper {
     private final Swapi api;
+    private final CacheManager cacheManager;
+    private final FanOut fanOut;
+    private final SwapiPageReader pages;
+    private final MeterRegistry meterRegistry;
 
-    StarWarsServiceHelper(Swapi api) {
+    StarWarsServiceHelper(Swapi api, CacheManager cacheManager, FanOut fanOut, SwapiPageReader pages, MeterRegistry meterRegistry) {
         this.api = api;
+        this.cacheManager = cacheManager;
+        this.fanOut = fanOut;
+        this.pages = pages;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Coalesced
+    @Cacheable(value = "films", key = "#filmId", sync = true)
+    public Validated<SwapiFilm> lookupSwapiFilm(int filmId) {
+        return fetchFilm(filmId, peek("films", filmId));
+    }
+
+    @Coalesced
+    @Cacheable(value = "planets", key = "#planetId", sync = true)
+    public Validated<Planet> lookupPlanet(int planetId) {
+        return fetchPlanet(planetId, peek("planets", planetId));
+    }
+
+    @Coalesced
+    @Cacheable(value = "residents-by-planet", key = "#planetId", sync = true)
+    public int[] lookupResidentIds(int planetId) {
+        try {
+            final var p = api.findPlanetById(planetId).orElseThrow(() -> new IllegalArgumentException("Unknown planet id: " + planetId));
+            return p.residents().ids();
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new IllegalArgumentException("Unknown planet id: " + planetId);
+        }
+    }
+
+    @Coalesced
+    @Cacheable(value = "characters", key = "#name", sync = true)
+    public int[] lookupCharacterIdsByName(String name) {
+        final var swapiPeople = pages.readAll(api.findPeopleByName(name), page -> api.findPeopleByName(name, page));
+        // Search results already hold every people entity: no need to fetch them again later.
+        return cachePeople(swapiPeople).stream().mapToInt(CachedPeople::id).toArray();
+    }
+
+    /**
+     * Write people entities to the cache used by {@link #lookupPeople(Collection)}, in a single round-trip.
+     */
+    public List<CachedPeople> cachePeople(List<SwapiPeople> swapiPeople) {
+        final var entities = new ArrayList<CachedPeople>(swapiPeople.size());
+        final var people = new HashMap<Object, Object>(swapiPeople.size() * 2);
+        for (final var p : swapiPeople) {
+            final var entity = toCachedPeople(p);
+            entities.add(entity);
+            people.put(entity.id(), entity);
+        }
+        final var cache = cacheManager.getCache("people");
+        if (cache instanceof BatchCache batchCache) {
+            batchCache.putAll(people);
+        } else if (cache != null) {
+            people.forEach(cache::put);
+        }
+        return entities;
+    }
+
+    /**
+     * Lookup films using the same cache as {@link #lookupSwapiFilm(int)}:
+     * cached films are read in a single round-trip, and missing films are fetched concurrently.
+     */
+    @SuppressWarnings("unchecked")
+    public List<SwapiFilm> lookupSwapiFilms(Collection<Integer> filmIds) {
+        final var films = lookupAll("films", filmIds, this::fetchFilms);
+        final var result = new ArrayList<SwapiFilm>(filmIds.size());
+        for (final var id : filmIds) {
+            result.add(((Validated<SwapiFilm>) films.get(id)).value());
+        }
+        return result;
+    }
+
+    /**
+     * Lookup planets using the same cache as {@link #lookupPlanet(int)}:
+     * cached planets are read in a single round-trip, and missing planets are written back in a single round-trip.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Planet> lookupPlanets(Collection<Integer> planetIds) {
+        final var planets = lookupAll("planets", planetIds, this::fetchPlanets);
+        final var result = new ArrayList<Planet>(planetIds.size());
+        for (final var id : planetIds) {
+            result.add(((Validated<Planet>) planets.get(id)).value());
+        }
+        return result;
+    }
+
+    /**
+     * Lookup people by id, resolving their homeworld with {@link #lookupPlanets(Collection)}.
+     */
+    public List<People> lookupPeople(Collection<Integer> peopleIds) {
+        final var people = lookupAll("people", peopleIds, this::fetchPeople);
+        final var entities = new ArrayList<CachedPeople>(peopleIds.size());
+        for (final var id : peopleIds) {
+            entities.add((CachedPeople) people.get(id));
+        }
+        final var homeworlds = lookupPlanets(entities.stream().map(CachedPeople::homeworldId).toList());
+        final var result = new ArrayList<People>(entities.size());
+        for (int i = 0; i < entities.size(); ++i) {
+            final var p = entities.get(i);
+            result.add(new People(p.id(), p.name(), homeworlds.get(i)));
+        }
+        return result;
+    }
+
+    private Map<Object, Object> lookupAll(String cacheName, Collection<Integer> entityIds, BatchCache.Loader loader) {
+        final var ids = new LinkedHashSet<>(entityIds);
+        final var cache = cacheManager.getCache(cacheName);
+        if (cache instanceof BatchCache batchCache) {
+            return batchCache.getAll(ids, loader);
+        }
+
+        final var entities = new HashMap<Object, Object>(ids.size() * 2);
+        final var missingIds = new ArrayList<Object>(ids.size());
+        for (final var id : ids) {
+            final var w = cache == null ? null : cache.get(id);
+            if (w != null && w.get() != null) {
+                entities.put(id, w.get());
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            final var loaded = loader.load(missingIds, Map.of());
+            if (cache != null) {
+                loaded.forEach(cache::put);
+            }
+            entities.putAll(loaded);
+        }
+        return entities;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Object, Object> fetchFilms(List<Object> filmIds, Map<Object, Object> expired) {
+        return fetchAll("lookupSwapiFilm", filmIds, id -> fetchFilm(id, (Validated<SwapiFilm>) expired.get(id)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Object, Object> fetchPlanets(List<Object> planetIds, Map<Object, Object> expired) {
+        // Expired planets were read along with cached planets: revalidate them without reading them again.
+        return fetchAll("lookupPlanet", planetIds, id -> fetchPlanet(id, (Validated<Planet>) expired.get(id)));
+    }
+
+    private Map<Object, Object> fetchPeople(List<Object> peopleIds, Map<Object, Object> expired) {
+        return fetchAll("lookupPeople", peopleIds, this::fetchPeopleById);
+    }
+
+    private Map<Object, Object> fetchAll(String name, List<Object> ids, Function<Integer, Object> fetcher) {
+        final var entities = fanOut.map(name, ids, id -> id, id -> fetcher.apply((Integer) id));
+        final var loaded = new HashMap<Object, Object>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); ++i) {
+            loaded.put(ids.get(i), entities.get(i));
+        }
+        return loaded;
+    }
+
+    private Validated<SwapiFilm> fetchFilm(int filmId, @Nullable Validated<SwapiFilm> previous) {
+        return revalidate("films", "film", filmId, previous,
+                (etag, lastModified) -> api.findFilmById(filmId, etag, lastModified), f -> f);
+    }
+
+    private Validated<Planet> fetchPlanet(int planetId, @Nullable Validated<Planet> previous) {
+        return revalidate("planets", "planet", planetId, previous,
+                (etag, lastModified) -> api.findPlanetById(planetId, etag, lastModified),
+                p -> new Planet(planetId, p.name(), p.population()));
+    }
+
+    /**
+     * Get the cached entry for this id, even if it has expired.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private <T> Validated<T> peek(String cacheName, int id) {
+        final var cache = cacheManager.getCache(cacheName);
+        return cache instanceof TwoTierCache t && t.peek(id) instanceof Validated<?> v ? (Validated<T>) v : null;
+    }
+
+    /**
+     * Fetch a resource, sending the validators of the previous entry (if any):
+     * the previous entry is reused if SWAPI replies with <code>304 Not Modified</code>.
+     */
+    private <S, T> Validated<T> revalidate(String cacheName, String resourceName, int id,
+                                           @Nullable Validated<T> previous,
+                                           BiFunction<String, String, ResponseEntity<S>> conditionalGet,
+                                           Function<S, T> mapper) {
+
+        final ResponseEntity<S> resp;
+        try {
+            resp = previous == null ? conditionalGet.apply(null, null)
+                    : conditionalGet.apply(previous.etag(), previous.lastModified());
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new IllegalArgumentException("Unknown " + resourceName + " id: " + id);
+        }
+        if (previous != null && resp.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            revalidationCounter(cacheName, "not-modified").increment();
+            return previous;
+        }
+        final var body = resp.getBody();
+        if (body == null) {
+            throw new IllegalArgumentException("Unknown " + resourceName + " id: " + id);
+        }
+        if (previous != null) {
+            revalidationCounter(cacheName, "modified").increment();
+        }
+        return new Validated<>(mapper.apply(body), resp.getHeaders().getETag(),
+                resp.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+    }
+
+    private Counter revalidationCounter(String cacheName, String outcome) {
+        return Counter.builder("swai.cache.revalidations")
+                .description("Number of cache entries revalidated with a conditional GET")
+                .tag("cache", cacheName)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
-    @Cacheable(value = "films", key = "#filmId")
-    public SwapiFilm lookupSwapiFilm(int filmId) {
-        return api.findFilmById(filmId).orElseThrow(() -> new IllegalArgumentException("Unknown film id: " + filmId));
+    private CachedPeople fetchPeopleById(int peopleId) {
+        try {
+            return toCachedPeople(api.findPeopleById(peopleId).orElseThrow(() -> new IllegalArgumentException("Unknown people id: " + peopleId)));
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new IllegalArgumentException("Unknown people id: " + peopleId);
+        }
     }
 
-    @Cacheable(value = "planets", key = "#planetId")
-    public Planet lookupPlanet(int planetId) {
-        final var p = api.findPlanetById(planetId).orElseThrow(() -> new IllegalArgumentException("Unknown planet id: " + planetId));
-        return new Planet(planetId, p.name(), p.population());
+    private static CachedPeople toCachedPeople(SwapiPeople p) {
+        return new CachedPeople(p.url().id(), p.name(), p.homeworld().id());
     }
 }
@@ -17,6 +17,8 @@
 package com.broadcom.tanzu.demos.swai.impl;
 
 import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.FilmCharacters;
+import com.broadcom.tanzu.demos.swai.FilmPlanets;
 import com.broadcom.tanzu.demos.swai.People;
 import com.broadcom.tanzu.demos.swai.Planet;
 import com.broadcom.tanzu.demos.swai.StarWarsService;
@@ -24,42 +26,46 @@ import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
-import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
 
 @Service
-@Profile("!fake")
+@Profile("!fake & !snapshot & !reactive")
 class StarWarsServiceImpl implements StarWarsService {
     private final Logger logger = LoggerFactory.getLogger(StarWarsServiceImpl.class);
     private final Swapi api;
     private final StarWarsServiceHelper helper;
+    private final SwapiPageReader pages;
+    private final PeopleNameIndexer nameIndexer;
+    private final RelationshipIndexer relationshipIndexer;
     private final ObservationRegistry reg;
 
-    StarWarsServiceImpl(Swapi api, StarWarsServiceHelper helper, ObservationRegistry reg) {
+    StarWarsServiceImpl(Swapi api, StarWarsServiceHelper helper, SwapiPageReader pages,
+                        ObjectProvider<PeopleNameIndexer> nameIndexer,
+                        ObjectProvider<RelationshipIndexer> relationshipIndexer, ObservationRegistry reg) {
         this.api = api;
         this.helper = helper;
+        this.pages = pages;
+        this.nameIndexer = nameIndexer.getIfAvailable();
+        this.relationshipIndexer = relationshipIndexer.getIfAvailable();
         this.reg = reg;
     }
 
-    private static int getResourceId(URL u) {
-        var p = u.getPath();
-        if (p.endsWith("/")) {
-            p = p.substring(0, p.length() - 1);
-        }
-        final int i = p.lastIndexOf("/");
-        if (i == -1) {
-            throw new IllegalArgumentException("Cannot find resource id in URL: " + u);
-        }
-        return Integer.parseInt(p.substring(i + 1));
-    }
-
     @Override
-    @Cacheable(value = "residents-by-planet", key = "#planetId")
     public List<People> findResidentsByPlanet(int planetId) {
         return Observation.createNotStarted("findResidentsByPlanet", reg)
                 .lowCardinalityKeyValue("planetId", String.valueOf(planetId))
@@ -68,59 +74,112 @@ class StarWarsServiceImpl implements StarWarsService {
 
     private List<People> doFindResidentsByPlanet(int planetId) {
         logger.debug("Looking up planet by id {}", planetId);
-        final var swapiPlanet = api.findPlanetById(planetId)
-                .orElseThrow(() -> new IllegalArgumentException("Unknown planet id: " + planetId));
-
-        final var residents = new ArrayList<People>(swapiPlanet.residents().size());
-        for (final var r : swapiPlanet.residents()) {
-            final var rid = getResourceId(r);
-            final var people = api.findPeopleById(rid).orElseThrow(() -> new IllegalArgumentException("Unknown people id: " + rid));
-            logger.debug("Found resident from planet {}: {}", planetId, people.name());
-            final var hwid = getResourceId(people.homeworld());
-            final var hw = helper.lookupPlanet(hwid);
-            residents.add(new People(rid, people.name(), new Planet(hwid, hw.name(), hw.population())));
+        final var index = relationships();
+        final var residentIds = index == null ? null : index.residentsByPlanet(planetId);
+        final var residents = helper.lookupPeople(toList(residentIds != null ? residentIds : helper.lookupResidentIds(planetId)));
+        for (final var p : residents) {
+            logger.debug("Found resident from planet {}: {}", planetId, p.name());
         }
         return residents;
     }
 
+    private static List<Integer> toList(int[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    @Nullable
+    private RelationshipIndex relationships() {
+        return relationshipIndexer == null ? null : relationshipIndexer.current();
+    }
+
+    private int[] planetIdsByFilm(int filmId) {
+        final var index = relationships();
+        final var ids = index == null ? null : index.planetsByFilm(filmId);
+        return ids != null ? ids : helper.lookupSwapiFilm(filmId).value().planets().ids();
+    }
+
+    private int[] characterIdsByFilm(int filmId) {
+        final var index = relationships();
+        final var ids = index == null ? null : index.charactersByFilm(filmId);
+        return ids != null ? ids : helper.lookupSwapiFilm(filmId).value().characters().ids();
+    }
+
+    /**
+     * Get related ids for several films: films missing from the relationship index are looked up in a single batch.
+     */
+    private int[][] idsByFilms(int[] filmIds, BiFunction<RelationshipIndex, Integer, int[]> indexLookup,
+                               Function<SwapiFilm, int[]> filmLookup) {
+        final var index = relationships();
+        final var idsByFilm = new int[filmIds.length][];
+        final var missingFilmIds = new ArrayList<Integer>(filmIds.length);
+        for (int i = 0; i < filmIds.length; ++i) {
+            idsByFilm[i] = index == null ? null : indexLookup.apply(index, filmIds[i]);
+            if (idsByFilm[i] == null) {
+                missingFilmIds.add(filmIds[i]);
+            }
+        }
+        if (!missingFilmIds.isEmpty()) {
+            final var films = helper.lookupSwapiFilms(missingFilmIds).iterator();
+            for (int i = 0; i < filmIds.length; ++i) {
+                if (idsByFilm[i] == null) {
+                    idsByFilm[i] = filmLookup.apply(films.next());
+                }
+            }
+        }
+        return idsByFilm;
+    }
+
+    private static Set<Integer> uniqueIds(int[][] idsByFilm) {
+        final var ids = new LinkedHashSet<Integer>();
+        for (final var filmIds : idsByFilm) {
+            for (final var id : filmIds) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static Film toFilm(SwapiFilm f) {
+        return new Film(f.url().id(), f.title(), f.episodeId(), f.releaseDate());
+    }
+
     @Override
-    @Cacheable(value = "films")
+    @Cacheable(value = "films", sync = true)
     public List<Film> findFilms() {
         return Observation.createNotStarted("findFilms", reg).observe(this::doFindFilms);
     }
 
     private List<Film> doFindFilms() {
         logger.debug("Looking up films");
-        final var swapiFilms = api.findAllFilms().results();
+        final var swapiFilms = pages.readAll(api.findAllFilms(), api::findAllFilms);
 
         final var films = new ArrayList<Film>(swapiFilms.size());
         for (final var f : swapiFilms) {
             logger.debug("Found film: {}", f.title());
-            films.add(new Film(getResourceId(f.url()), f.title(), f.episodeId(), f.releaseDate()));
+            films.add(toFilm(f));
         }
         return films;
     }
 
     @Override
-    @Cacheable(value = "planets")
+    @Cacheable(value = "planets", sync = true)
     public List<Planet> findPlanets() {
         return Observation.createNotStarted("findPlanets", reg).observe(this::doFindPlanets);
     }
 
     private List<Planet> doFindPlanets() {
         logger.debug("Looking up planets");
-        final var swapiPlanets = api.findAllPlanets().results();
+        final var swapiPlanets = pages.readAll(api.findAllPlanets(), api::findAllPlanets);
 
         final var planets = new ArrayList<Planet>(swapiPlanets.size());
         for (final var p : swapiPlanets) {
             logger.debug("Found planet: {}", p.name());
-            planets.add(new Planet(getResourceId(p.url()), p.name(), p.population()));
+            planets.add(new Planet(p.url().id(), p.name(), p.population()));
         }
         return planets;
     }
 
     @Override
-    @Cacheable(value = "planets-by-film", key = "#filmId")
     public List<Planet> findPlanetsByFilm(int filmId) {
         return Observation.createNotStarted("findPlanetsByFilm", reg)
                 .lowCardinalityKeyValue("filmId", String.valueOf(filmId))
@@ -129,19 +188,14 @@ class StarWarsServiceImpl implements StarWarsService {
 
     private List<Planet> doFindPlanetsByFilm(int filmId) {
         logger.debug("Looking up planets appearing in film id: {}", filmId);
-        final var planetIds = helper.lookupSwapiFilm(filmId).planets().stream().map(StarWarsServiceImpl::getResourceId).toList();
-
-        final var planets = new ArrayList<Planet>(planetIds.size());
-        for (final var planetId : planetIds) {
-            final var p = helper.lookupPlanet(planetId);
+        final var planets = helper.lookupPlanets(toList(planetIdsByFilm(filmId)));
+        for (final var p : planets) {
             logger.debug("Found planet appearing in film {}: {}", filmId, p.name());
-            planets.add(p);
         }
         return planets;
     }
 
     @Override
-    @Cacheable(value = "characters-by-film", key = "#filmId")
     public List<People> findCharactersByFilm(int filmId) {
         return Observation.createNotStarted("findCharactersByFilm", reg)
                 .lowCardinalityKeyValue("filmId", String.valueOf(filmId))
@@ -150,20 +204,14 @@ class StarWarsServiceImpl implements StarWarsService {
 
     private List<People> doFindCharactersByFilm(int filmId) {
         logger.debug("Looking up characters appearing in film id: {}", filmId);
-        final var characterIds = helper.lookupSwapiFilm(filmId).characters().stream().map(StarWarsServiceImpl::getResourceId).toList();
-
-        final var characters = new ArrayList<People>(characterIds.size());
-        for (final var cid : characterIds) {
-            final var p = api.findPeopleById(cid).orElseThrow(() -> new IllegalArgumentException("Unknown people id: " + cid));
+        final var characters = helper.lookupPeople(toList(characterIdsByFilm(filmId)));
+        for (final var p : characters) {
             logger.debug("Found character appearing in film {}: {}", filmId, p.name());
-            final var hwid = getResourceId(p.homeworld());
-            characters.add(new People(cid, p.name(), helper.lookupPlanet(hwid)));
         }
         return characters;
     }
 
     @Override
-    @Cacheable(value = "characters", key = "#name")
     public List<People> findCharactersByName(String name) {
         return Observation.createNotStarted("findCharactersByName", reg)
                 .lowCardinalityKeyValue("name", name)
@@ -172,14 +220,121 @@ class StarWarsServiceImpl implements StarWarsService {
 
     private List<People> doFindCharactersByName(String name) {
         logger.debug("Looking up characters by name: {}", name);
-        final var swapiPeople = api.findPeopleByName(name).results();
-
-        final var characters = new ArrayList<People>(swapiPeople.size());
-        for (final var p : swapiPeople) {
+        final var index = nameIndexer == null ? null : nameIndexer.current();
+        final var characterIds = index != null ? index.search(name) : helper.lookupCharacterIdsByName(name);
+        final var characters = helper.lookupPeople(toList(characterIds));
+        for (final var p : characters) {
             logger.debug("Found character with name {}: {}", name, p.name());
-            final var hwid = getResourceId(p.homeworld());
-            characters.add(new People(getResourceId(p.url()), p.name(), helper.lookupPlanet(hwid)));
         }
         return characters;
     }
+
+    @Override
+    public List<People> findPeopleByIds(int[] peopleIds) {
+        return Observation.createNotStarted("findPeopleByIds", reg)
+                .highCardinalityKeyValue("peopleIds", Arrays.toString(peopleIds))
+                .observe(() -> helper.lookupPeople(toList(peopleIds)));
+    }
+
+    @Override
+    public List<Planet> findPlanetsByIds(int[] planetIds) {
+        return Observation.createNotStarted("findPlanetsByIds", reg)
+                .highCardinalityKeyValue("planetIds", Arrays.toString(planetIds))
+                .observe(() -> helper.lookupPlanets(toList(planetIds)));
+    }
+
+    @Override
+    public List<FilmCharacters> findCharactersByFilms(int[] filmIds) {
+        return Observation.createNotStarted("findCharactersByFilms", reg)
+                .highCardinalityKeyValue("filmIds", Arrays.toString(filmIds))
+                .observe(() -> doFindCharactersByFilms(filmIds));
+    }
+
+    private List<FilmCharacters> doFindCharactersByFilms(int[] filmIds) {
+        logger.debug("Looking up characters appearing in films: {}", filmIds);
+        final var characterIdsByFilm = idsByFilms(filmIds, RelationshipIndex::charactersByFilm, f -> f.characters().ids());
+        final var characterIds = uniqueIds(characterIdsByFilm);
+
+        // Characters shared by several films are resolved once, with a single batch lookup.
+        final var charactersById = new HashMap<Integer, People>(characterIds.size() * 2);
+        for (final var p : helper.lookupPeople(characterIds)) {
+            charactersById.put(p.id(), p);
+        }
+        final var result = new ArrayList<FilmCharacters>(filmIds.length);
+        for (int i = 0; i < filmIds.length; ++i) {
+            final var characters = new ArrayList<People>(characterIdsByFilm[i].length);
+            for (final var id : characterIdsByFilm[i]) {
+                characters.add(charactersById.get(id));
+            }
+            result.add(new FilmCharacters(filmIds[i], characters));
+        }
+        return result;
+    }
+
+    @Override
+    public List<FilmPlanets> findPlanetsByFilms(int[] filmIds) {
+        return Observation.createNotStarted("findPlanetsByFilms", reg)
+                .highCardinalityKeyValue("filmIds", Arrays.toString(filmIds))
+                .observe(() -> doFindPlanetsByFilms(filmIds));
+    }
+
+    private List<FilmPlanets> doFindPlanetsByFilms(int[] filmIds) {
+        logger.debug("Looking up planets appearing in films: {}", filmIds);
+        final var planetIdsByFilm = idsByFilms(filmIds, RelationshipIndex::planetsByFilm, f -> f.planets().ids());
+        final var planetIds = uniqueIds(planetIdsByFilm);
+
+        // Planets shared by several films are resolved once, with a single batch lookup.
+        final var planetsById = new HashMap<Integer, Planet>(planetIds.size() * 2);
+        for (final var p : helper.lookupPlanets(planetIds)) {
+            planetsById.put(p.id(), p);
+        }
+        final var result = new ArrayList<FilmPlanets>(filmIds.length);
+        for (int i = 0; i < filmIds.length; ++i) {
+            final var planets = new ArrayList<Planet>(planetIdsByFilm[i].length);
+            for (final var id : planetIdsByFilm[i]) {
+                planets.add(planetsById.get(id));
+            }
+            result.add(new FilmPlanets(filmIds[i], planets));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Film> findFilmsByCharacter(int peopleId) {
+        return Observation.createNotStarted("findFilmsByCharacter", reg)
+                .lowCardinalityKeyValue("peopleId", String.valueOf(peopleId))
+                .observe(() -> findFilmsByRelationship(index -> index.filmsByCharacter(peopleId), f -> f.characters().contains(peopleId),
+                        () -> helper.lookupPeople(List.of(peopleId))));
+    }
+
+    @Override
+    public List<Film> findFilmsByPlanet(int planetId) {
+        return Observation.createNotStarted("findFilmsByPlanet", reg)
+                .lowCardinalityKeyValue("planetId", String.valueOf(planetId))
+                .observe(() -> findFilmsByRelationship(index -> index.filmsByPlanet(planetId), f -> f.planets().contains(planetId),
+                        () -> helper.lookupPlanets(List.of(planetId))));
+    }
+
+    /**
+     * Find films with a reverse lookup in the relationship index, or by scanning every film
+     * until the index is available.
+     * When no film is found, the entity is looked up to reject unknown ids
+     * with an {@link IllegalArgumentException}, like other implementations.
+     */
+    private List<Film> findFilmsByRelationship(Function<RelationshipIndex, int[]> reverseLookup, Predicate<SwapiFilm> filter,
+                                               Runnable checkExists) {
+        final var index = relationships();
+        final List<Film> films;
+        if (index == null) {
+            films = pages.readAll(api.findAllFilms(), api::findAllFilms).stream()
+                    .filter(filter).map(StarWarsServiceImpl::toFilm).toList();
+        } else {
+            films = helper.lookupSwapiFilms(toList(reverseLookup.apply(index))).stream()
+                    .map(StarWarsServiceImpl::toFilm).toList();
+        }
+        if (films.isEmpty()) {
+            checkExists.run();
+        }
+        return films;
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.StarWarsService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Profiles;
+
+import java.util.List;
+
+/**
+ * Fail fast when several profiles selecting a {@link StarWarsService} implementation are active:
+ * otherwise the application would fail later with an ambiguous bean definition.
+ */
+class StarWarsServiceProfiles implements EnvironmentPostProcessor, Ordered {
+    static final List<String> PROFILES = List.of("fake", "snapshot", "reactive");
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        final var active = PROFILES.stream()
+                .filter(p -> environment.acceptsProfiles(Profiles.of(p)))
+                .toList();
+        if (active.size() > 1) {
+            throw new IllegalStateException("Profiles " + String.join(", ", PROFILES)
+                    + " are mutually exclusive: found " + active);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // Run once profiles have been loaded from configuration files.
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.People;
+import com.broadcom.tanzu.demos.swai.Planet;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable view of the whole Star Wars dataset, with every relationship resolved up front.
+ * Relationships are also indexed in both directions, to answer reverse lookups (films of a character).
+ */
+final class StarWarsSnapshot {
+    private final Instant createdAt;
+    private final List<Film> films;
+    private final List<Planet> planets;
+    private final List<People> people;
+    private final Map<Integer, Film> filmsById;
+    private final Map<Integer, Planet> planetsById;
+    private final Map<Integer, People> peopleById;
+    private final Map<Integer, List<Planet>> planetsByFilm;
+    private final Map<Integer, List<People>> charactersByFilm;
+    private final Map<Integer, List<People>> residentsByPlanet;
+    private final RelationshipIndex relationships;
+    private final String version;
+
+    StarWarsSnapshot(Instant createdAt, List<Film> films, List<Planet> planets, List<People> people,
+                     Map<Integer, int[]> planetIdsByFilm,
+                     Map<Integer, int[]> characterIdsByFilm,
+                     Map<Integer, int[]> residentIdsByPlanet) {
+        this.createdAt = createdAt;
+        this.films = List.copyOf(films);
+        this.planets = List.copyOf(planets);
+        this.people = List.copyOf(people);
+        this.filmsById = index(films, Film::id);
+        this.planetsById = index(planets, Planet::id);
+        this.peopleById = index(people, People::id);
+        this.planetsByFilm = resolve(filmsById.keySet(), planetIdsByFilm, planetsById, "planet");
+        this.charactersByFilm = resolve(filmsById.keySet(), characterIdsByFilm, peopleById, "people");
+        this.residentsByPlanet = resolve(planetsById.keySet(), residentIdsByPlanet, peopleById, "people");
+        this.relationships = new RelationshipIndex(planetIdsByFilm, characterIdsByFilm, residentIdsByPlanet);
+        this.version = fingerprint(films, planets, people, planetIdsByFilm, characterIdsByFilm, residentIdsByPlanet);
+    }
+
+    /**
+     * Compute a fingerprint of Star Wars data: the same data always gets the same fingerprint.
+     */
+    static String fingerprint(List<Film> films, List<Planet> planets, List<People> people,
+                              Map<Integer, int[]> planetIdsByFilm,
+                              Map<Integer, int[]> characterIdsByFilm,
+                              Map<Integer, int[]> residentIdsByPlanet) {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (final var f : films) {
+            md.update(f.toString().getBytes(StandardCharsets.UTF_8));
+            md.update(Arrays.toString(planetIdsByFilm.get(f.id())).getBytes(StandardCharsets.UTF_8));
+            md.update(Arrays.toString(characterIdsByFilm.get(f.id())).getBytes(StandardCharsets.UTF_8));
+        }
+        for (final var p : planets) {
+            md.update(p.toString().getBytes(StandardCharsets.UTF_8));
+            md.update(Arrays.toString(residentIdsByPlanet.get(p.id())).getBytes(StandardCharsets.UTF_8));
+        }
+        for (final var p : people) {
+            md.update(p.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static <T> Map<Integer, T> index(List<T> items, ToIntFunction<T> id) {
+        final var m = new LinkedHashMap<Integer, T>(items.size() * 2);
+        for (final var item : items) {
+            m.put(id.applyAsInt(item), item);
+        }
+        return Collections.unmodifiableMap(m);
+    }
+
+    private static <T> Map<Integer, List<T>> resolve(Iterable<Integer> owners, Map<Integer, int[]> ids,
+                                                     Map<Integer, T> targets, String targetKind) {
+        final var m = new HashMap<Integer, List<T>>();
+        for (final var owner : owners) {
+            final var targetIds = ids.getOrDefault(owner, new int[0]);
+            final var resolved = new ArrayList<T>(targetIds.length);
+            for (final var targetId : targetIds) {
+                final var target = targets.get(targetId);
+                if (target == null) {
+                    throw new IllegalStateException("Unknown " + targetKind + " id: " + targetId);
+                }
+                resolved.add(target);
+            }
+            m.put(owner, Collections.unmodifiableList(resolved));
+        }
+        return Collections.unmodifiableMap(m);
+    }
+
+    Instant createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * Get a fingerprint of the dataset: snapshots holding the same data share the same version,
+     * whenever they were created.
+     */
+    String version() {
+        return version;
+    }
+
+    List<Film> films() {
+        return films;
+    }
+
+    List<Planet> planets() {
+        return planets;
+    }
+
+    List<People> people() {
+        return people;
+    }
+
+    List<Planet> planetsByFilm(int filmId) {
+        final var planets = planetsByFilm.get(filmId);
+        if (planets == null) {
+            throw new IllegalArgumentException("Unknown film id: " + filmId);
+        }
+        return planets;
+    }
+
+    List<People> charactersByFilm(int filmId) {
+        final var characters = charactersByFilm.get(filmId);
+        if (characters == null) {
+            throw new IllegalArgumentException("Unknown film id: " + filmId);
+        }
+        return characters;
+    }
+
+    List<People> residentsByPlanet(int planetId) {
+        final var residents = residentsByPlanet.get(planetId);
+        if (residents == null) {
+            throw new IllegalArgumentException("Unknown planet id: " + planetId);
+        }
+        return residents;
+    }
+
+    RelationshipIndex relationships() {
+        return relationships;
+    }
+
+    List<Film> filmsByCharacter(int peopleId) {
+        if (!peopleById.containsKey(peopleId)) {
+            throw new IllegalArgumentException("Unknown people id: " + peopleId);
+        }
+        return byIds(relationships.filmsByCharacter(peopleId), filmsById, "film");
+    }
+
+    List<Film> filmsByPlanet(int planetId) {
+        if (!planetsById.containsKey(planetId)) {
+            throw new IllegalArgumentException("Unknown planet id: " + planetId);
+        }
+        return byIds(relationships.filmsByPlanet(planetId), filmsById, "film");
+    }
+
+    List<People> peopleByIds(int[] peopleIds) {
+        return byIds(peopleIds, peopleById, "people");
+    }
+
+    List<Planet> planetsByIds(int[] planetIds) {
+        return byIds(planetIds, planetsById, "planet");
+    }
+
+    private static <T> List<T> byIds(int[] ids, Map<Integer, T> items, String kind) {
+        final var result = new ArrayList<T>(ids.length);
+        for (final var id : ids) {
+            final var item = items.get(id);
+            if (item == null) {
+                throw new IllegalArgumentException("Unknown " + kind + " id: " + id);
+            }
+            result.add(item);
+        }
+        return result;
+    }
+
+    List<People> charactersByName(String name) {
+        final var q = name.toLowerCase(Locale.ROOT);
+        return people.stream().filter(p -> p.name().toLowerCase(Locale.ROOT).contains(q)).toList();
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.People;
+import com.broadcom.tanzu.demos.swai.Planet;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compact binary encoding of a {@link StarWarsSnapshot}, read back through a memory-mapped file.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * header      magic, version, createdAt (epoch millis), film count, planet count, people count, string count
+ * strings     offsets[string count + 1], UTF-8 bytes
+ * films       id, title, episode, release date (epoch day)   16 bytes per record
+ * planets     id, name, population                           12 bytes per record
+ * people      id, name, homeworld id                         12 bytes per record
+ * id indexes  for films, planets and people: max id, record position by id (-1 if missing)
+ * relations   for planets by film, characters by film and residents by planet:
+ *             offsets[owner count + 1] in owner record order, target ids
+ * </pre>
+ * Strings are interned: records only hold an index in the string table.
+ */
+final class StarWarsSnapshotFile {
+    private static final int MAGIC = 0x53574149;
+    private static final int VERSION = 1;
+    private static final int NO_STRING = -1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private StarWarsSnapshotFile() {
+    }
+
+    static void write(StarWarsSnapshot snapshot, Path file) throws IOException {
+        final var strings = new LinkedHashMap<String, Integer>();
+        final ToIntFunction<String> intern = s -> s == null ? NO_STRING : strings.computeIfAbsent(s, k -> strings.size());
+
+        final var films = snapshot.films();
+        final var planets = snapshot.planets();
+        final var people = snapshot.people();
+
+        final var records = new ByteArrayOutputStream(4096);
+        final var out = new DataOutputStream(records);
+        for (final var f : films) {
+            out.writeInt(f.id());
+            out.writeInt(intern.applyAsInt(f.title()));
+            out.writeInt(f.episode());
+            out.writeInt(f.releaseDate() == null ? NO_DATE : Math.toIntExact(f.releaseDate().toEpochDay()));
+        }
+        for (final var p : planets) {
+            out.writeInt(p.id());
+            out.writeInt(intern.applyAsInt(p.name()));
+            out.writeInt(intern.applyAsInt(p.population()));
+        }
+        for (final var p : people) {
+            out.writeInt(p.id());
+            out.writeInt(intern.applyAsInt(p.name()));
+            out.writeInt(p.homeworld().id());
+        }
+        writeIdIndex(out, films, Film::id);
+        writeIdIndex(out, planets, Planet::id);
+        writeIdIndex(out, people, People::id);
+        writeRelation(out, films, f -> snapshot.planetsByFilm(f.id()).stream().mapToInt(Planet::id).toArray());
+        writeRelation(out, films, f -> snapshot.charactersByFilm(f.id()).stream().mapToInt(People::id).toArray());
+        writeRelation(out, planets, p -> snapshot.residentsByPlanet(p.id()).stream().mapToInt(People::id).toArray());
+        out.flush();
+
+        final var tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (final var fileOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            fileOut.writeInt(MAGIC);
+            fileOut.writeInt(VERSION);
+            fileOut.writeLong(snapshot.createdAt().toEpochMilli());
+            fileOut.writeInt(films.size());
+            fileOut.writeInt(planets.size());
+            fileOut.writeInt(people.size());
+            fileOut.writeInt(strings.size());
+
+            final var encoded = new ArrayList<byte[]>(strings.size());
+            int offset = 0;
+            fileOut.writeInt(offset);
+            for (final var s : strings.keySet()) {
+                final var bytes = s.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                offset += bytes.length;
+                fileOut.writeInt(offset);
+            }
+            for (final var bytes : encoded) {
+                fileOut.write(bytes);
+            }
+            records.writeTo(fileOut);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static <T> void writeIdIndex(DataOutputStream out, List<T> items, ToIntFunction<T> id) throws IOException {
+        final var maxId = items.stream().mapToInt(id).max().orElse(-1);
+        final var positions = new int[maxId + 1];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < items.size(); ++i) {
+            positions[id.applyAsInt(items.get(i))] = i;
+        }
+        out.writeInt(maxId);
+        for (final var pos : positions) {
+            out.writeInt(pos);
+        }
+    }
+
+    private static <T> void writeRelation(DataOutputStream out, List<T> owners, Function<T, int[]> targets) throws IOException {
+        final var targetIds = new ArrayList<int[]>(owners.size());
+        int offset = 0;
+        out.writeInt(offset);
+        for (final var owner : owners) {
+            final var ids = targets.apply(owner);
+            targetIds.add(ids);
+            offset += ids.length;
+            out.writeInt(offset);
+        }
+        for (final var ids : targetIds) {
+            for (final var id : ids) {
+                out.writeInt(id);
+            }
+        }
+    }
+
+    static StarWarsSnapshot read(Path file) throws IOException {
+        try (final var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            final var buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.remaining() < 8 || buf.getInt() != MAGIC) {
+                throw new IOException("Not a Star Wars snapshot file: " + file);
+            }
+            final var version = buf.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported Star Wars snapshot file version " + version + ": " + file);
+            }
+            return decode(buf);
+        }
+    }
+
+    private static StarWarsSnapshot decode(ByteBuffer buf) {
+        final var createdAt = Instant.ofEpochMilli(buf.getLong());
+        final var filmCount = buf.getInt();
+        final var planetCount = buf.getInt();
+        final var peopleCount = buf.getInt();
+        final var stringCount = buf.getInt();
+
+        final var stringOffsets = new int[stringCount + 1];
+        for (int i = 0; i < stringOffsets.length; ++i) {
+            stringOffsets[i] = buf.getInt();
+        }
+        final var strings = new String[stringCount];
+        final var bytes = new byte[stringOffsets[stringCount]];
+        buf.get(bytes);
+        for (int i = 0; i < stringCount; ++i) {
+            strings[i] = new String(bytes, stringOffsets[i], stringOffsets[i + 1] - stringOffsets[i], StandardCharsets.UTF_8);
+        }
+
+        final var films = new ArrayList<Film>(filmCount);
+        for (int i = 0; i < filmCount; ++i) {
+            final var id = buf.getInt();
+            final var title = string(strings, buf.getInt());
+            final var episode = buf.getInt();
+            final var releaseDate = buf.getInt();
+            films.add(new Film(id, title, episode, releaseDate == NO_DATE ? null : LocalDate.ofEpochDay(releaseDate)));
+        }
+        final var planets = new ArrayList<Planet>(planetCount);
+        for (int i = 0; i < planetCount; ++i) {
+            planets.add(new Planet(buf.getInt(), string(strings, buf.getInt()), string(strings, buf.getInt())));
+        }
+        final var peopleIds = new int[peopleCount];
+        final var peopleNames = new String[peopleCount];
+        final var homeworldIds = new int[peopleCount];
+        for (int i = 0; i < peopleCount; ++i) {
+            peopleIds[i] = buf.getInt();
+            peopleNames[i] = string(strings, buf.getInt());
+            homeworldIds[i] = buf.getInt();
+        }
+
+        skipIdIndex(buf);
+        final var planetPositions = readIdIndex(buf);
+        skipIdIndex(buf);
+
+        final var people = new ArrayList<People>(peopleCount);
+        for (int i = 0; i < peopleCount; ++i) {
+            final var hwid = homeworldIds[i];
+            if (hwid < 0 || hwid >= planetPositions.length || planetPositions[hwid] == -1) {
+                throw new IllegalStateException("Unknown planet id: " + hwid);
+            }
+            people.add(new People(peopleIds[i], peopleNames[i], planets.get(planetPositions[hwid])));
+        }
+
+        final var planetIdsByFilm = readRelation(buf, films, Film::id);
+        final var characterIdsByFilm = readRelation(buf, films, Film::id);
+        final var residentIdsByPlanet = readRelation(buf, planets, Planet::id);
+        return new StarWarsSnapshot(createdAt, films, planets, people,
+                planetIdsByFilm, characterIdsByFilm, residentIdsByPlanet);
+    }
+
+    private static String string(String[] strings, int index) {
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    private static int[] readIdIndex(ByteBuffer buf) {
+        final var positions = new int[buf.getInt() + 1];
+        for (int i = 0; i < positions.length; ++i) {
+            positions[i] = buf.getInt();
+        }
+        return positions;
+    }
+
+    private static void skipIdIndex(ByteBuffer buf) {
+        final var length = buf.getInt() + 1;
+        buf.position(buf.position() + length * Integer.BYTES);
+    }
+
+    private static <T> Map<Integer, int[]> readRelation(ByteBuffer buf, List<T> owners, ToIntFunction<T> id) {
+        final var offsets = new int[owners.size() + 1];
+        for (int i = 0; i < offsets.length; ++i) {
+            offsets[i] = buf.getInt();
+        }
+        final var relation = new HashMap<Integer, int[]>(owners.size() * 2);
+        for (int i = 0; i < owners.size(); ++i) {
+            final var targets = new int[offsets[i + 1] - offsets[i]];
+            for (int j = 0; j < targets.length; ++j) {
+                targets[j] = buf.getInt();
+            }
+            relation.put(id.applyAsInt(owners.get(i)), targets);
+        }
+        return relation;
+    }
+}
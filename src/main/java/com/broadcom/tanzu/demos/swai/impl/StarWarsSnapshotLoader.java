@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.People;
+import com.broadcom.tanzu.demos.swai.Planet;
+import com.broadcom.tanzu.demos.swai.StarWarsDataChangedEvent;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads Star Wars data from SWAPI collections, and tracks the version of the dataset.
+ * <p>
+ * A change detected by an instance is broadcast to other instances (see {@link CacheInvalidations}):
+ * every instance then publishes a {@link StarWarsDataChangedEvent}, discarding data derived from the previous version.
+ */
+@Component
+class StarWarsSnapshotLoader implements MessageListener {
+    private final Logger logger = LoggerFactory.getLogger(StarWarsSnapshotLoader.class);
+    private final Swapi api;
+    private final SwapiPageReader pages;
+    private final ApplicationEventPublisher events;
+    private final ObservationRegistry reg;
+    private final StringRedisTemplate redis;
+    private final String versionKey;
+    private final CacheInvalidations invalidations;
+    private final AtomicReference<String> lastVersion = new AtomicReference<>();
+
+    StarWarsSnapshotLoader(Swapi api, SwapiPageReader pages, ApplicationEventPublisher events, ObservationRegistry reg,
+                           ObjectProvider<StringRedisTemplate> redis,
+                           @Value("${app.cache.datasetVersionKey}") String versionKey,
+                           ObjectProvider<CacheInvalidations> invalidations) {
+        this.api = api;
+        this.pages = pages;
+        this.events = events;
+        this.reg = reg;
+        this.redis = redis.getIfAvailable();
+        this.versionKey = versionKey;
+        this.invalidations = invalidations.getIfAvailable();
+    }
+
+    StarWarsSnapshot load() {
+        final var snapshot = Observation.createNotStarted("loadSnapshot", reg).observe(this::doLoad);
+        track(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Load relationships between films, planets and people from the film and planet collections only:
+     * unlike {@link #load()}, the people collection (the largest one) is not read, and the version is not tracked.
+     */
+    RelationshipIndex loadRelationships() {
+        final var data = Observation.createNotStarted("loadRelationships", reg).observe(this::readRelationships);
+        logger.info("Loaded Star Wars relationships: {} films, {} planets", data.films().size(), data.planets().size());
+        return new RelationshipIndex(data.planetIdsByFilm(), data.characterIdsByFilm(), data.residentIdsByPlanet());
+    }
+
+    /**
+     * Track the version of a snapshot in use, publishing a {@link StarWarsDataChangedEvent}
+     * when its data differs from the previous snapshot.
+     * <p>
+     * The last version is stored in Redis: data changed while no instance was running
+     * is detected as soon as the first snapshot is loaded.
+     */
+    void track(StarWarsSnapshot snapshot) {
+        final var version = snapshot.version();
+        final var previous = swapVersion(version);
+        if (previous != null && !previous.equals(version)) {
+            logger.info("Star Wars data changed: new version {}", version);
+            events.publishEvent(new StarWarsDataChangedEvent(version));
+            if (invalidations != null) {
+                invalidations.publishDataChanged(version);
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        final var parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n");
+        if (parts.length < 3 || !CacheInvalidations.DATA_CHANGED.equals(parts[1])
+                || invalidations == null || invalidations.nodeId().equals(parts[0])) {
+            return;
+        }
+        final var version = parts[2];
+        if (!version.equals(lastVersion.getAndSet(version))) {
+            logger.info("Star Wars data changed on another instance: new version {}", version);
+            events.publishEvent(new StarWarsDataChangedEvent(version));
+        }
+    }
+
+    @Nullable
+    private String swapVersion(String version) {
+        final var previous = lastVersion.getAndSet(version);
+        if (redis == null) {
+            return previous;
+        }
+        try {
+            final var stored = redis.opsForValue().getAndSet(versionKey, version);
+            return stored != null ? stored : previous;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to store Star Wars data version", e);
+            return previous;
+        }
+    }
+
+    private StarWarsSnapshot doLoad() {
+        logger.debug("Loading Star Wars snapshot");
+        final var data = readRelationships();
+        final var swapiPeople = pages.readAll(api.findAllPeople(), api::findAllPeople);
+
+        final var planetsById = new HashMap<Integer, Planet>();
+        data.planets().forEach(p -> planetsById.put(p.id(), p));
+        final var people = new ArrayList<People>(swapiPeople.size());
+        for (final var p : swapiPeople) {
+            final var hwid = p.homeworld().id();
+            final var hw = planetsById.get(hwid);
+            if (hw == null) {
+                throw new IllegalStateException("Unknown planet id: " + hwid);
+            }
+            people.add(new People(p.url().id(), p.name(), hw));
+        }
+
+        logger.info("Loaded Star Wars snapshot: {} films, {} planets, {} people", data.films().size(), data.planets().size(), people.size());
+        return new StarWarsSnapshot(Instant.now(), data.films(), data.planets(), people,
+                data.planetIdsByFilm(), data.characterIdsByFilm(), data.residentIdsByPlanet());
+    }
+
+    private Relationships readRelationships() {
+        final var swapiFilms = pages.readAll(api.findAllFilms(), api::findAllFilms);
+        final var swapiPlanets = pages.readAll(api.findAllPlanets(), api::findAllPlanets);
+
+        final var films = new ArrayList<Film>(swapiFilms.size());
+        final var planetIdsByFilm = new HashMap<Integer, int[]>();
+        final var characterIdsByFilm = new HashMap<Integer, int[]>();
+        for (final var f : swapiFilms) {
+            final var filmId = f.url().id();
+            films.add(new Film(filmId, f.title(), f.episodeId(), f.releaseDate()));
+            planetIdsByFilm.put(filmId, f.planets().ids());
+            characterIdsByFilm.put(filmId, f.characters().ids());
+        }
+
+        final var planets = new ArrayList<Planet>(swapiPlanets.size());
+        final var residentIdsByPlanet = new HashMap<Integer, int[]>();
+        for (final var p : swapiPlanets) {
+            final var planet = new Planet(p.url().id(), p.name(), p.population());
+            planets.add(planet);
+            residentIdsByPlanet.put(planet.id(), p.residents().ids());
+        }
+        return new Relationships(films, planets, planetIdsByFilm, characterIdsByFilm, residentIdsByPlanet);
+    }
+
+    /**
+     * Films and planets, with the ids of their related entities.
+     */
+    private record Relationships(List<Film> films, List<Planet> planets,
+                                 Map<Integer, int[]> planetIdsByFilm,
+                                 Map<Integer, int[]> characterIdsByFilm,
+                                 Map<Integer, int[]> residentIdsByPlanet) {
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Cache settings.
+ * <p>
+ * Entries older than <code>softTtl</code> are served while being refreshed in the background.
+ * Entries older than <code>ttl</code> are refreshed before being served,
+ * unless the refresh fails: in this case entries are served up to <code>ttl + staleIfError</code>.
+ */
+@ConfigurationProperties(prefix = "app.cache")
+record SwaiCacheProperties(
+        Duration ttl,
+        Duration softTtl,
+        Duration staleIfError,
+        L1 l1,
+        String invalidationChannel,
+        Map<String, Spec> specs) {
+    SwaiCacheProperties {
+        specs = specs == null ? Map.of() : Map.copyOf(specs);
+    }
+
+    Spec spec(String cacheName) {
+        return specs.getOrDefault(cacheName, new Spec(null, null, null, null));
+    }
+
+    Duration ttl(String cacheName) {
+        final var spec = spec(cacheName);
+        return spec.ttl() != null ? spec.ttl() : ttl;
+    }
+
+    Duration softTtl(String cacheName) {
+        final var spec = spec(cacheName);
+        return spec.softTtl() != null ? spec.softTtl() : softTtl;
+    }
+
+    record L1(boolean enabled, long maxWeight, Duration ttl) {
+    }
+
+    record Spec(Duration ttl, Duration softTtl, Long l1MaxWeight, Duration l1Ttl) {
+    }
+}
@@ -16,8 +16,12 @@
 
 package com.broadcom.tanzu.demos.swai.impl;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.HttpExchange;
 
@@ -28,18 +32,51 @@ interface Swapi {
     @GetExchange("/films/")
     SwapiFilmResults findAllFilms();
 
+    @GetExchange("/films/?page={page}")
+    SwapiFilmResults findAllFilms(@PathVariable("page") int page);
+
     @GetExchange("/planets/")
     SwapiPlanetResults findAllPlanets();
 
+    @GetExchange("/planets/?page={page}")
+    SwapiPlanetResults findAllPlanets(@PathVariable("page") int page);
+
     @GetExchange("/planets/{id}")
     Optional<SwapiPlanet> findPlanetById(@PathVariable("id") int id);
 
+    /**
+     * Conditional GET: a <code>304 Not Modified</code> response without any body is returned
+     * if the resource matches the validators.
+     */
+    @GetExchange("/planets/{id}")
+    ResponseEntity<SwapiPlanet> findPlanetById(@PathVariable("id") int id,
+                                               @Nullable @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String etag,
+                                               @Nullable @RequestHeader(name = HttpHeaders.IF_MODIFIED_SINCE, required = false) String lastModified);
+
     @GetExchange("/films/{id}")
     Optional<SwapiFilm> findFilmById(@PathVariable("id") int id);
 
+    /**
+     * Conditional GET: a <code>304 Not Modified</code> response without any body is returned
+     * if the resource matches the validators.
+     */
+    @GetExchange("/films/{id}")
+    ResponseEntity<SwapiFilm> findFilmById(@PathVariable("id") int id,
+                                           @Nullable @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String etag,
+                                           @Nullable @RequestHeader(name = HttpHeaders.IF_MODIFIED_SINCE, required = false) String lastModified);
+
     @GetExchange("/people/{id}")
     Optional<SwapiPeople> findPeopleById(@PathVariable("id") int id);
 
+    @GetExchange("/people/")
+    SwapiPeopleResults findAllPeople();
+
+    @GetExchange("/people/?page={page}")
+    SwapiPeopleResults findAllPeople(@PathVariable("page") int page);
+
     @GetExchange("/people/?search={name}")
     SwapiPeopleResults findPeopleByName(@PathVariable("name") String name);
+
+    @GetExchange("/people/?search={name}&page={page}")
+    SwapiPeopleResults findPeopleByName(@PathVariable("name") String name, @PathVariable("page") int page);
 }
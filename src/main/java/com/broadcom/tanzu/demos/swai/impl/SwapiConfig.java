@@ -16,18 +16,94 @@
 
 package com.broadcom.tanzu.demos.swai.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.support.RestClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 
+import java.time.Duration;
+
 @Configuration(proxyBeanMethods = false)
 class SwapiConfig {
     @Bean
-    Swapi swapi(RestClient client) {
-        return HttpServiceProxyFactory.builderFor(RestClientAdapter.create(client))
+    Swapi swapi(RestClient client, ObjectProvider<MeterRegistry> meterRegistry,
+                ObjectProvider<CircuitBreakerInterceptor> breaker,
+                ObjectProvider<RetryInterceptor> retry,
+                ObjectProvider<HedgingInterceptor> hedging,
+                ObjectProvider<AdaptiveLimiterInterceptor> limiter) {
+        final var api = HttpServiceProxyFactory.builderFor(RestClientAdapter.create(client))
                 .build()
                 .createClient(Swapi.class);
+
+        // Interceptors are invoked in this order.
+        final var pf = new ProxyFactory(api);
+        pf.addInterface(Swapi.class);
+        pf.addAdvice(new CoalescingInterceptor("swapi", meterRegistry));
+        breaker.ifAvailable(pf::addAdvice);
+        retry.ifAvailable(pf::addAdvice);
+        hedging.ifAvailable(pf::addAdvice);
+        limiter.ifAvailable(pf::addAdvice);
+        return (Swapi) pf.getProxy(Swapi.class.getClassLoader());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.swapi.breaker.enabled", havingValue = "true")
+    CircuitBreakerInterceptor swapiBreaker(@Value("${app.swapi.breaker.windowSize}") int windowSize,
+                                           @Value("${app.swapi.breaker.minCalls}") int minCalls,
+                                           @Value("${app.swapi.breaker.failureRateThreshold}") double failureRateThreshold,
+                                           @Value("${app.swapi.breaker.openDuration}") Duration openDuration,
+                                           @Value("${app.swapi.breaker.halfOpenCalls}") int halfOpenCalls,
+                                           MeterRegistry meterRegistry) {
+        return new CircuitBreakerInterceptor("swapi", windowSize, minCalls, failureRateThreshold,
+                openDuration, halfOpenCalls, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.swapi.breaker.enabled", havingValue = "true")
+    SwapiHealthIndicator swapiHealthIndicator(CircuitBreakerInterceptor breaker) {
+        return new SwapiHealthIndicator(breaker);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.swapi.retry.enabled", havingValue = "true")
+    RetryInterceptor swapiRetry(@Value("${app.swapi.retry.maxAttempts}") int maxAttempts,
+                                @Value("${app.swapi.retry.initialBackoff}") Duration initialBackoff,
+                                @Value("${app.swapi.retry.maxBackoff}") Duration maxBackoff,
+                                @Value("${app.swapi.retry.budget}") double budget,
+                                MeterRegistry meterRegistry) {
+        return new RetryInterceptor("swapi", maxAttempts, initialBackoff, maxBackoff, budget, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.swapi.hedge.enabled", havingValue = "true")
+    HedgingInterceptor swapiHedging(@Value("${app.swapi.hedge.percentile}") double percentile,
+                                    @Value("${app.swapi.hedge.minDelay}") Duration minDelay,
+                                    @Value("${app.swapi.hedge.budget}") double budget,
+                                    @Value("${app.swapi.hedge.maxConcurrency}") int maxConcurrency,
+                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                    ObservationRegistry reg, MeterRegistry meterRegistry) {
+        return new HedgingInterceptor("swapi", percentile, minDelay, budget, maxConcurrency, virtualThreads,
+                reg, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.swapi.limiter.enabled", havingValue = "true")
+    AdaptiveLimiterInterceptor swapiLimiter(@Value("${app.swapi.limiter.initialLimit}") int initialLimit,
+                                            @Value("${app.swapi.limiter.minLimit}") int minLimit,
+                                            @Value("${app.swapi.limiter.maxLimit}") int maxLimit,
+                                            @Value("${app.swapi.limiter.backoffRatio}") double backoffRatio,
+                                            @Value("${app.swapi.limiter.latencyThreshold}") Duration latencyThreshold,
+                                            @Value("${app.swapi.limiter.maxQueue}") int maxQueue,
+                                            @Value("${app.swapi.limiter.queueTimeout}") Duration queueTimeout,
+                                            MeterRegistry meterRegistry) {
+        return new AdaptiveLimiterInterceptor("swapi", initialLimit, minLimit, maxLimit, backoffRatio,
+                latencyThreshold, maxQueue, queueTimeout, meterRegistry);
     }
 }
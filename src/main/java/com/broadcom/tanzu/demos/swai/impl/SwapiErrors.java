@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.concurrent.CancellationException;
+
+final class SwapiErrors {
+    private SwapiErrors() {
+    }
+
+    /**
+     * Check if an error is transient, i.e. if SWAPI is unavailable or overloaded:
+     * I/O errors (including timeouts), server errors, and throttling.
+     * Errors from both {@link Swapi} and {@link ReactiveSwapi} are supported.
+     */
+    static boolean isTransient(Throwable e) {
+        return e instanceof ResourceAccessException
+                || e instanceof HttpServerErrorException
+                || e instanceof HttpStatusCodeException s && s.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                || e instanceof WebClientRequestException
+                || e instanceof WebClientResponseException r && (r.getStatusCode().is5xxServerError()
+                        || r.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS));
+    }
+
+    /**
+     * Report a call interrupted while waiting: {@link Swapi} methods do not declare checked exceptions,
+     * so the interruption is rethrown as a {@link CancellationException} after restoring the interrupt flag.
+     */
+    static CancellationException interrupted(String message, InterruptedException e) {
+        Thread.currentThread().interrupt();
+        final var ex = new CancellationException(message);
+        ex.initCause(e);
+        return ex;
+    }
+}
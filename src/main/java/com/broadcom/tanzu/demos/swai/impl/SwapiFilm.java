@@ -18,16 +18,14 @@ package com.broadcom.tanzu.demos.swai.impl;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import java.net.URL;
 import java.time.LocalDate;
-import java.util.List;
 
 record SwapiFilm(
         String title,
         @JsonProperty("episode_id") int episodeId,
-        URL url,
-        List<URL> characters,
-        List<URL> planets,
+        SwapiRef url,
+        SwapiRefs characters,
+        SwapiRefs planets,
         @JsonProperty("release_date")
         LocalDate releaseDate) {
 }
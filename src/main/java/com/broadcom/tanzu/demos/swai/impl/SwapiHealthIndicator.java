@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+/**
+ * Reports the state of SWAPI circuit breakers.
+ * <p>
+ * This application stays up when SWAPI is unavailable (cached data is still served):
+ * an open breaker is only reported in health details, so that orchestrators do not restart
+ * healthy instances during a SWAPI outage.
+ */
+class SwapiHealthIndicator implements HealthIndicator {
+    private final CircuitBreakerInterceptor breakers;
+
+    SwapiHealthIndicator(CircuitBreakerInterceptor breakers) {
+        this.breakers = breakers;
+    }
+
+    @Override
+    public Health health() {
+        final var health = Health.up();
+        var available = true;
+        for (final var b : breakers.breakers()) {
+            final var state = b.state();
+            health.withDetail(b.name(), state.name().toLowerCase());
+            if (state == CircuitBreaker.State.OPEN) {
+                available = false;
+            }
+        }
+        return health.withDetail("available", available).build();
+    }
+}
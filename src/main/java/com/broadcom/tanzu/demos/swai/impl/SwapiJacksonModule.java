@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Streaming deserializers for SWAPI resources.
+ * <p>
+ * SWAPI payloads carry many fields which are not used by this app (opening crawl, vehicles, starships...):
+ * these deserializers read known fields straight from the token stream, and skip any other field
+ * without binding it. Resource URLs are decoded in place to {@link SwapiRef} and {@link SwapiRefs}
+ * instances, straight from the parser buffer.
+ */
+class SwapiJacksonModule extends SimpleModule {
+    SwapiJacksonModule() {
+        super("swapi");
+        addDeserializer(SwapiFilm.class, new SwapiFilmDeserializer());
+        addDeserializer(SwapiPlanet.class, new SwapiPlanetDeserializer());
+        addDeserializer(SwapiPeople.class, new SwapiPeopleDeserializer());
+    }
+
+    /**
+     * Create an {@link ObjectMapper} dedicated to SWAPI responses, with streaming deserializers
+     * and bytecode-generated accessors for remaining types.
+     * <p>
+     * Do not use this mapper for cached values: cache serializers rely on default typing.
+     */
+    static ObjectMapper swapiObjectMapper(ObjectMapper om) {
+        return om.copy()
+                .registerModule(new SwapiJacksonModule())
+                .registerModule(new BlackbirdModule());
+    }
+
+    private static JsonToken firstField(JsonParser p) throws IOException {
+        final var t = p.currentToken();
+        return t == JsonToken.START_OBJECT ? p.nextToken() : t;
+    }
+
+    private static SwapiRef readRef(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.VALUE_STRING) {
+            p.skipChildren();
+            return null;
+        }
+        try {
+            return SwapiResources.parseRef(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        } catch (IllegalArgumentException e) {
+            throw JsonMappingException.from(p, e.getMessage(), e);
+        }
+    }
+
+    private static SwapiRefs readRefs(JsonParser p, SwapiKind kind) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return SwapiRefs.of(kind);
+        }
+        var ids = new int[16];
+        var size = 0;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            try {
+                ids[size++] = SwapiResources.parseId(p.getTextCharacters(), p.getTextOffset(), p.getTextLength(), kind);
+            } catch (IllegalArgumentException e) {
+                throw JsonMappingException.from(p, e.getMessage(), e);
+            }
+        }
+        return new SwapiRefs(kind, size == ids.length ? ids : Arrays.copyOf(ids, size));
+    }
+
+    private static LocalDate readDate(JsonParser p) throws IOException {
+        final var s = p.getValueAsString();
+        return s == null || s.isEmpty() ? null : LocalDate.parse(s);
+    }
+
+    static class SwapiFilmDeserializer extends StdDeserializer<SwapiFilm> {
+        SwapiFilmDeserializer() {
+            super(SwapiFilm.class);
+        }
+
+        @Override
+        public SwapiFilm deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String title = null;
+            int episodeId = 0;
+            SwapiRef url = null;
+            SwapiRefs characters = SwapiRefs.of(SwapiKind.PEOPLE);
+            SwapiRefs planets = SwapiRefs.of(SwapiKind.PLANETS);
+            LocalDate releaseDate = null;
+            for (var t = firstField(p); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                final var field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "title" -> title = p.getValueAsString();
+                    case "episode_id" -> episodeId = p.getValueAsInt();
+                    case "url" -> url = readRef(p);
+                    case "characters" -> characters = readRefs(p, SwapiKind.PEOPLE);
+                    case "planets" -> planets = readRefs(p, SwapiKind.PLANETS);
+                    case "release_date" -> releaseDate = readDate(p);
+                    default -> p.skipChildren();
+                }
+            }
+            return new SwapiFilm(title, episodeId, url, characters, planets, releaseDate);
+        }
+    }
+
+    static class SwapiPlanetDeserializer extends StdDeserializer<SwapiPlanet> {
+        SwapiPlanetDeserializer() {
+            super(SwapiPlanet.class);
+        }
+
+        @Override
+        public SwapiPlanet deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String name = null;
+            String population = null;
+            SwapiRef url = null;
+            SwapiRefs residents = SwapiRefs.of(SwapiKind.PEOPLE);
+            for (var t = firstField(p); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                final var field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "name" -> name = p.getValueAsString();
+                    case "population" -> population = p.getValueAsString();
+                    case "url" -> url = readRef(p);
+                    case "residents" -> residents = readRefs(p, SwapiKind.PEOPLE);
+                    default -> p.skipChildren();
+                }
+            }
+            return new SwapiPlanet(name, population, url, residents);
+        }
+    }
+
+    static class SwapiPeopleDeserializer extends StdDeserializer<SwapiPeople> {
+        SwapiPeopleDeserializer() {
+            super(SwapiPeople.class);
+        }
+
+        @Override
+        public SwapiPeople deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String name = null;
+            SwapiRef homeworld = null;
+            SwapiRef url = null;
+            for (var t = firstField(p); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                final var field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "name" -> name = p.getValueAsString();
+                    case "homeworld" -> homeworld = readRef(p);
+                    case "url" -> url = readRef(p);
+                    default -> p.skipChildren();
+                }
+            }
+            return new SwapiPeople(name, homeworld, url);
+        }
+    }
+}
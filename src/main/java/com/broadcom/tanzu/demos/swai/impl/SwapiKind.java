@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+/**
+ * Kinds of SWAPI resources, with their path and the code used to persist them.
+ * Codes are part of the cache format: never change or reuse them.
+ */
+enum SwapiKind {
+    FILMS("films", 0),
+    PEOPLE("people", 1),
+    PLANETS("planets", 2),
+    SPECIES("species", 3),
+    STARSHIPS("starships", 4),
+    VEHICLES("vehicles", 5);
+
+    private final String path;
+    private final byte code;
+
+    SwapiKind(String path, int code) {
+        this.path = path;
+        this.code = (byte) code;
+    }
+
+    String path() {
+        return path;
+    }
+
+    byte code() {
+        return code;
+    }
+
+    /**
+     * Get the resource kind persisted with a code.
+     */
+    static SwapiKind fromCode(byte code) {
+        for (final var k : values()) {
+            if (k.code == code) {
+                return k;
+            }
+        }
+        throw new IllegalArgumentException("Unknown resource kind code: " + code);
+    }
+
+    /**
+     * Get the resource kind matching a path segment, without allocating a string.
+     */
+    static SwapiKind fromPath(char[] buf, int offset, int length) {
+        for (final var k : values()) {
+            if (k.path.length() == length && matches(k.path, buf, offset)) {
+                return k;
+            }
+        }
+        throw new IllegalArgumentException("Unknown resource kind: " + new String(buf, offset, length));
+    }
+
+    private static boolean matches(String path, char[] buf, int offset) {
+        for (int i = 0; i < path.length(); ++i) {
+            if (path.charAt(i) != buf[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
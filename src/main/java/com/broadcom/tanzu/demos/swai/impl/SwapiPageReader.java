@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads every page of a SWAPI collection.
+ * <p>
+ * {@link #readAll} uses the item count from the first page to fetch the remaining pages concurrently,
+ * whereas {@link #stream} walks pages lazily while prefetching the next one in the background.
+ */
+@Component
+class SwapiPageReader {
+    private final FanOut fanOut;
+
+    SwapiPageReader(FanOut fanOut) {
+        this.fanOut = fanOut;
+    }
+
+    <T> List<T> readAll(SwapiPage<T> first, IntFunction<? extends SwapiPage<T>> pageFetcher) {
+        final var pageSize = first.results().size();
+        if (first.next() == null || pageSize == 0) {
+            return new ArrayList<>(first.results());
+        }
+
+        final var pageCount = (first.count() + pageSize - 1) / pageSize;
+        final var pageNumbers = IntStream.rangeClosed(2, pageCount).boxed().toList();
+        final var pages = fanOut.<Integer, SwapiPage<T>>map("fetchPage", pageNumbers, n -> n, pageFetcher::apply);
+
+        final var items = new ArrayList<T>(Math.max(first.count(), pageSize));
+        items.addAll(first.results());
+        for (final var page : pages) {
+            items.addAll(page.results());
+        }
+        return items;
+    }
+
+    <T> Stream<T> stream(Supplier<? extends SwapiPage<T>> first, IntFunction<? extends SwapiPage<T>> pageFetcher) {
+        final var it = new PageIterator<T>(fanOut, first, pageFetcher);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(it::close);
+    }
+
+    private static class PageIterator<T> implements Iterator<T> {
+        private final FanOut fanOut;
+        private final Supplier<? extends SwapiPage<T>> first;
+        private final IntFunction<? extends SwapiPage<T>> pageFetcher;
+        private Iterator<T> current = Collections.emptyIterator();
+        private CompletableFuture<? extends SwapiPage<T>> nextPage;
+        private int page;
+
+        PageIterator(FanOut fanOut, Supplier<? extends SwapiPage<T>> first, IntFunction<? extends SwapiPage<T>> pageFetcher) {
+            this.fanOut = fanOut;
+            this.first = first;
+            this.pageFetcher = pageFetcher;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                final SwapiPage<T> p;
+                if (page == 0) {
+                    p = first.get();
+                } else if (nextPage != null) {
+                    p = FanOut.await(nextPage);
+                    nextPage = null;
+                } else {
+                    return false;
+                }
+                page += 1;
+                if (p.next() != null) {
+                    final var n = page + 1;
+                    nextPage = fanOut.submit(() -> pageFetcher.apply(n));
+                }
+                current = p.results().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        void close() {
+            if (nextPage != null) {
+                nextPage.cancel(true);
+                nextPage = null;
+            }
+        }
+    }
+}
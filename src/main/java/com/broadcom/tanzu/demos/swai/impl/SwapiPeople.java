@@ -16,10 +16,7 @@
 
 package com.broadcom.tanzu.demos.swai.impl;
 
-import java.net.URL;
-import java.util.List;
-
 record SwapiPeople(
-        String name, URL homeworld,
-        URL url) {
+        String name, SwapiRef homeworld,
+        SwapiRef url) {
 }
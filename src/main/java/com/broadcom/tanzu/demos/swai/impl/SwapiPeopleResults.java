@@ -16,9 +16,12 @@
 
 package com.broadcom.tanzu.demos.swai.impl;
 
+import java.net.URL;
 import java.util.List;
 
 record SwapiPeopleResults(
+        int count,
+        URL next,
         List<SwapiPeople> results
-) {
+) implements SwapiPage<SwapiPeople> {
 }
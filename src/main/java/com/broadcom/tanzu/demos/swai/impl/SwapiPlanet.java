@@ -16,11 +16,8 @@
 
 package com.broadcom.tanzu.demos.swai.impl;
 
-import java.net.URL;
-import java.util.List;
-
 record SwapiPlanet(
         String name, String population,
-        URL url,
-        List<URL> residents) {
+        SwapiRef url,
+        SwapiRefs residents) {
 }
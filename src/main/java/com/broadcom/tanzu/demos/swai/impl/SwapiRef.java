@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+/**
+ * Reference to a SWAPI resource, such as <code>https://swapi.dev/api/people/1/</code>.
+ */
+record SwapiRef(SwapiKind kind, int id) {
+    static SwapiRef parse(String url) {
+        final var buf = url.toCharArray();
+        return SwapiResources.parseRef(buf, 0, buf.length);
+    }
+
+    @Override
+    public String toString() {
+        return kind.path() + "/" + id;
+    }
+}
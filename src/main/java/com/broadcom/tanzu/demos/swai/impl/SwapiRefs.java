@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * List of references to SWAPI resources of the same kind, backed by an array of ids.
+ */
+record SwapiRefs(SwapiKind kind, int[] ids) {
+    static SwapiRefs of(SwapiKind kind, int... ids) {
+        return new SwapiRefs(kind, ids);
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    boolean contains(int id) {
+        for (final var i : ids) {
+            if (i == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<Integer> toList() {
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SwapiRefs r && kind == r.kind && Arrays.equals(ids, r.ids);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * kind.hashCode() + Arrays.hashCode(ids);
+    }
+
+    @Override
+    public String toString() {
+        return kind.path() + Arrays.toString(ids);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+final class SwapiResources {
+    private SwapiResources() {
+    }
+
+    /**
+     * Parse a resource URL (such as <code>https://swapi.dev/api/people/1/</code>) into a reference.
+     */
+    static SwapiRef parseRef(char[] buf, int offset, int length) {
+        final var end = idEnd(buf, offset, length);
+        final var idStart = lastSlash(buf, offset, end) + 1;
+        final var kindStart = lastSlash(buf, offset, idStart - 1) + 1;
+        if (kindStart <= offset) {
+            throw new IllegalArgumentException("Cannot find resource id in URL: " + new String(buf, offset, length));
+        }
+        final var kind = SwapiKind.fromPath(buf, kindStart, idStart - 1 - kindStart);
+        return new SwapiRef(kind, parseInt(buf, idStart, end, offset, length));
+    }
+
+    /**
+     * Parse the id from a resource URL, checking the resource kind.
+     * Unlike {@link #parseRef(char[], int, int)}, no object is allocated.
+     */
+    static int parseId(char[] buf, int offset, int length, SwapiKind kind) {
+        final var end = idEnd(buf, offset, length);
+        final var idStart = lastSlash(buf, offset, end) + 1;
+        final var kindStart = idStart - 1 - kind.path().length();
+        if (kindStart <= offset || buf[kindStart - 1] != '/' || SwapiKind.fromPath(buf, kindStart, kind.path().length()) != kind) {
+            throw new IllegalArgumentException("Not a " + kind.path() + " URL: " + new String(buf, offset, length));
+        }
+        return parseInt(buf, idStart, end, offset, length);
+    }
+
+    private static int idEnd(char[] buf, int offset, int length) {
+        var end = offset + length;
+        if (end > offset && buf[end - 1] == '/') {
+            --end;
+        }
+        return end;
+    }
+
+    private static int lastSlash(char[] buf, int offset, int end) {
+        for (int i = end - 1; i >= offset; --i) {
+            if (buf[i] == '/') {
+                return i;
+            }
+        }
+        return offset - 1;
+    }
+
+    private static int parseInt(char[] buf, int start, int end, int offset, int length) {
+        if (start >= end) {
+            throw new IllegalArgumentException("Cannot find resource id in URL: " + new String(buf, offset, length));
+        }
+        var id = 0;
+        for (int i = start; i < end; ++i) {
+            final var c = buf[i];
+            if (c < '0' || c > '9' || id > (Integer.MAX_VALUE - 9) / 10) {
+                throw new IllegalArgumentException("Invalid resource id in URL: " + new String(buf, offset, length));
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+}
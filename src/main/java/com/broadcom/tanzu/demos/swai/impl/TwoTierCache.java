@@ -0,0 +1,423 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Cache} implementation with an optional in-process L1 in front of a shared L2 cache.
+ * Every write to the L2 cache is broadcast, so that other nodes drop their L1 copy.
+ * <p>
+ * Values are stored with their write time, which enables stale-while-revalidate
+ * and stale-if-error when values are loaded through this cache:
+ * see {@link SwaiCacheProperties}.
+ * <p>
+ * L2 values which cannot be decoded (for instance when written by a previous version
+ * with a different layout) are treated as misses, and overwritten once loaded again.
+ */
+class TwoTierCache implements BatchCache {
+    private final Logger logger = LoggerFactory.getLogger(TwoTierCache.class);
+    private final String name;
+    @Nullable
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> l1;
+    private final Cache l2;
+    private final CacheInvalidations invalidations;
+    @Nullable
+    private final RedisBatchOperations batchOps;
+    private final long softTtl;
+    private final long ttl;
+    private final Executor refreshExecutor;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Counter softStaleCounter;
+    private final Counter errorStaleCounter;
+    private final Counter refreshSuccessCounter;
+    private final Counter refreshFailureCounter;
+
+    TwoTierCache(String name, @Nullable com.github.benmanes.caffeine.cache.Cache<String, Object> l1,
+                 Cache l2, CacheInvalidations invalidations, @Nullable RedisBatchOperations batchOps,
+                 Duration softTtl, Duration ttl, Executor refreshExecutor, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.invalidations = invalidations;
+        this.batchOps = batchOps;
+        this.softTtl = softTtl.toMillis();
+        this.ttl = ttl.toMillis();
+        this.refreshExecutor = refreshExecutor;
+        this.softStaleCounter = staleCounter(meterRegistry, "soft");
+        this.errorStaleCounter = staleCounter(meterRegistry, "error");
+        this.refreshSuccessCounter = refreshCounter(meterRegistry, "success");
+        this.refreshFailureCounter = refreshCounter(meterRegistry, "failure");
+    }
+
+    private Counter staleCounter(MeterRegistry reg, String reason) {
+        return Counter.builder("swai.cache.stale")
+                .description("Number of stale values served from the cache")
+                .tag("cache", name)
+                .tag("reason", reason)
+                .register(reg);
+    }
+
+    private Counter refreshCounter(MeterRegistry reg, String outcome) {
+        return Counter.builder("swai.cache.refresh")
+                .description("Number of background refreshes of stale values")
+                .tag("cache", name)
+                .tag("outcome", outcome)
+                .register(reg);
+    }
+
+    static String toL1Key(Object key) {
+        return String.valueOf(key);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Nullable
+    private CachedValue getEntry(Object key) {
+        if (l1 != null) {
+            final var value = l1.getIfPresent(toL1Key(key));
+            if (value != null) {
+                return toEntry(value);
+            }
+        }
+        final var value = getL2(key);
+        if (value == null) {
+            return null;
+        }
+        if (l1 != null) {
+            l1.put(toL1Key(key), value);
+        }
+        return toEntry(value);
+    }
+
+    @Nullable
+    private Object getL2(Object key) {
+        try {
+            final var w = l2.get(key);
+            return w == null ? null : w.get();
+        } catch (SerializationException e) {
+            logger.warn("Ignoring undecodable value for key {} in cache {}", key, name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Get the value for this key, even if it has expired.
+     */
+    @Nullable
+    Object peek(Object key) {
+        final var e = getEntry(key);
+        return e == null ? null : e.value();
+    }
+
+    private static CachedValue toEntry(Object value) {
+        // Values written without a timestamp are considered as expired.
+        return value instanceof CachedValue e ? e : new CachedValue(value, 0);
+    }
+
+    private long age(CachedValue e) {
+        return System.currentTimeMillis() - e.writtenAt();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        final var e = getEntry(key);
+        return e == null || age(e) >= ttl ? null : new SimpleValueWrapper(e.value());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        final var w = get(key);
+        final var value = w == null ? null : w.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        final var e = getEntry(key);
+        if (e == null) {
+            return load(key, valueLoader);
+        }
+        final var age = age(e);
+        if (age < softTtl) {
+            return (T) e.value();
+        }
+        if (age < ttl) {
+            softStaleCounter.increment();
+            refreshInBackground(toL1Key(key), () -> {
+                put(key, valueLoader.call());
+                return null;
+            });
+            return (T) e.value();
+        }
+        try {
+            return load(key, valueLoader);
+        } catch (ValueRetrievalException ex) {
+            logger.warn("Serving stale value for key {} in cache {}", key, name, ex.getCause());
+            errorStaleCounter.increment();
+            return (T) e.value();
+        }
+    }
+
+    private <T> T load(Object key, Callable<T> valueLoader) {
+        final T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    private void refreshInBackground(String refreshKey, Callable<?> refresh) {
+        if (!refreshing.add(refreshKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh.call();
+                    refreshSuccessCounter.increment();
+                } catch (Exception e) {
+                    logger.warn("Failed to refresh {} in cache {}", refreshKey, name, e);
+                    refreshFailureCounter.increment();
+                } finally {
+                    refreshing.remove(refreshKey);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(refreshKey);
+            logger.warn("Failed to schedule refresh of {} in cache {}", refreshKey, name, e);
+        }
+    }
+
+    private Map<Object, CachedValue> getEntries(Collection<?> keys) {
+        final var entries = new LinkedHashMap<Object, CachedValue>(keys.size() * 2);
+        final var misses = new ArrayList<Object>(keys.size());
+        for (final var key : keys) {
+            final var value = l1 == null ? null : l1.getIfPresent(toL1Key(key));
+            if (value != null) {
+                entries.put(key, toEntry(value));
+            } else {
+                misses.add(key);
+            }
+        }
+        if (misses.isEmpty()) {
+            return entries;
+        }
+
+        final Map<Object, Object> l2Values;
+        if (batchOps != null && l2 instanceof RedisCache redisCache) {
+            l2Values = batchOps.getAll(redisCache, misses);
+        } else {
+            l2Values = new LinkedHashMap<>();
+            for (final var key : misses) {
+                final var value = getL2(key);
+                if (value != null) {
+                    l2Values.put(key, value);
+                }
+            }
+        }
+        l2Values.forEach((key, value) -> {
+            if (l1 != null) {
+                l1.put(toL1Key(key), value);
+            }
+            entries.put(key, toEntry(value));
+        });
+        return entries;
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Collection<?> keys, Loader loader) {
+        final var entries = getEntries(keys);
+        final var values = new LinkedHashMap<Object, Object>(keys.size() * 2);
+        final var staleKeys = new ArrayList<Object>();
+        final var keysToLoad = new ArrayList<Object>();
+        for (final var key : keys) {
+            final var e = entries.get(key);
+            if (e == null || age(e) >= ttl) {
+                keysToLoad.add(key);
+                continue;
+            }
+            if (age(e) >= softTtl) {
+                staleKeys.add(key);
+            }
+            values.put(key, e.value());
+        }
+
+        if (!staleKeys.isEmpty()) {
+            softStaleCounter.increment(staleKeys.size());
+            final var expired = values(entries, staleKeys);
+            refreshInBackground(staleKeys.toString(), () -> {
+                putAll(loader.load(staleKeys, expired));
+                return null;
+            });
+        }
+        if (!keysToLoad.isEmpty()) {
+            try {
+                final var loaded = loader.load(keysToLoad, values(entries, keysToLoad));
+                putAll(loaded);
+                values.putAll(loaded);
+            } catch (RuntimeException ex) {
+                for (final var key : keysToLoad) {
+                    final var e = entries.get(key);
+                    if (e == null) {
+                        throw ex;
+                    }
+                    values.put(key, e.value());
+                }
+                logger.warn("Serving stale values for keys {} in cache {}", keysToLoad, name, ex);
+                errorStaleCounter.increment(keysToLoad.size());
+            }
+        }
+        return values;
+    }
+
+    private static Map<Object, Object> values(Map<Object, CachedValue> entries, List<Object> keys) {
+        final var values = new LinkedHashMap<Object, Object>(keys.size() * 2);
+        for (final var key : keys) {
+            final var e = entries.get(key);
+            if (e != null) {
+                values.put(key, e.value());
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        final var now = System.currentTimeMillis();
+        final var wrapped = new LinkedHashMap<Object, Object>(entries.size() * 2);
+        entries.forEach((key, value) -> wrapped.put(key, new CachedValue(value, now)));
+
+        if (batchOps != null && l2 instanceof RedisCache redisCache) {
+            batchOps.putAll(redisCache, wrapped);
+        } else {
+            wrapped.forEach(l2::put);
+        }
+        final var l1Keys = new ArrayList<String>(entries.size());
+        wrapped.forEach((key, value) -> {
+            if (l1 != null) {
+                l1.put(toL1Key(key), value);
+            }
+            l1Keys.add(toL1Key(key));
+        });
+        invalidations.publishEvict(name, l1Keys);
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        final var e = new CachedValue(value, System.currentTimeMillis());
+        l2.put(key, e);
+        if (l1 != null) {
+            l1.put(toL1Key(key), e);
+        }
+        invalidations.publishEvict(name, List.of(toL1Key(key)));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        final var existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        put(key, value);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        evictLocal(toL1Key(key));
+        invalidations.publishEvict(name, List.of(toL1Key(key)));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        final var evicted = l2.evictIfPresent(key);
+        evictLocal(toL1Key(key));
+        invalidations.publishEvict(name, List.of(toL1Key(key)));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        clearLocal();
+        invalidations.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        final var invalidated = l2.invalidate();
+        clearLocal();
+        invalidations.publishClear(name);
+        return invalidated;
+    }
+
+    void evictLocal(String l1Key) {
+        if (l1 != null) {
+            l1.invalidate(l1Key);
+        }
+    }
+
+    void clearLocal() {
+        if (l1 != null) {
+            l1.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link CacheManager} wrapping every cache from a shared L2 {@link CacheManager}
+ * with a bounded, size-weighted in-process L1 cache.
+ * <p>
+ * L1 copies are dropped when another node publishes an invalidation for the same entry.
+ */
+class TwoTierCacheManager implements CacheManager, MessageListener, DisposableBean {
+    private final CacheManager l2;
+    private final SwaiCacheProperties props;
+    private final CacheInvalidations invalidations;
+    private final MeterRegistry meterRegistry;
+    private final RedisBatchOperations batchOps;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor = Executors.newFixedThreadPool(2, r -> {
+        final var t = new Thread(r, "cache-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    TwoTierCacheManager(CacheManager l2, SwaiCacheProperties props, CacheInvalidations invalidations,
+                        MeterRegistry meterRegistry, RedisBatchOperations batchOps) {
+        this.l2 = l2;
+        this.props = props;
+        this.invalidations = invalidations;
+        this.meterRegistry = meterRegistry;
+        this.batchOps = batchOps;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        final var cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        final var l2Cache = l2.getCache(name);
+        if (l2Cache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> new TwoTierCache(n, createL1(n), l2Cache, invalidations, batchOps,
+                props.softTtl(n), props.ttl(n), refreshExecutor, meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        final var names = new LinkedHashSet<>(l2.getCacheNames());
+        names.addAll(caches.keySet());
+        return names;
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<String, Object> createL1(String name) {
+        if (!props.l1().enabled()) {
+            return null;
+        }
+        final var spec = props.spec(name);
+        final var maxWeight = spec.l1MaxWeight() != null ? spec.l1MaxWeight() : props.l1().maxWeight();
+        final var ttl = spec.l1Ttl() != null ? spec.l1Ttl() : props.l1().ttl();
+        final com.github.benmanes.caffeine.cache.Cache<String, Object> l1 = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String k, Object v) -> weigh(v instanceof CachedValue e ? e.value() : v))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, l1, name, "tier", "l1");
+    }
+
+    private static int weigh(Object value) {
+        return value instanceof Collection<?> c ? Math.max(1, c.size()) : 1;
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        final var parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n");
+        if (parts.length < 3 || invalidations.nodeId().equals(parts[0])) {
+            return;
+        }
+        final var cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        switch (parts[1]) {
+            case CacheInvalidations.EVICT -> {
+                for (int i = 3; i < parts.length; ++i) {
+                    cache.evictLocal(parts[i]);
+                }
+            }
+            case CacheInvalidations.CLEAR -> cache.clearLocal();
+            default -> {
+            }
+        }
+    }
+}
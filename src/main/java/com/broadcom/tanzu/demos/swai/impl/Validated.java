@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Cached resource, with the validators sent by SWAPI
+ * (<code>ETag</code>, <code>Last-Modified</code>) to revalidate it with a conditional GET.
+ */
+record Validated<T>(T value, @Nullable String etag, @Nullable String lastModified) {
+}
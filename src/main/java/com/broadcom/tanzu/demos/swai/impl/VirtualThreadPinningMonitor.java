@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Reports virtual threads pinned to their carrier thread (for instance when blocking inside a
+ * <code>synchronized</code> block), using JFR events: pinned threads are logged with their stack trace,
+ * and recorded as the <code>swai.threads.pinned</code> timer, tagged with the frame where the thread was pinned.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                @Value("${app.threads.pinnedThreshold:20ms}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        logger.info("Monitoring virtual threads pinned for more than {}", threshold);
+    }
+
+    private void onPinned(RecordedEvent e) {
+        final var frame = pinnedFrame(e);
+        logger.warn("Virtual thread pinned for {} at {}:\n{}", e.getDuration(), frame, e.getStackTrace());
+        Timer.builder("swai.threads.pinned")
+                .description("Time spent by virtual threads pinned to their carrier thread")
+                .tag("frame", frame)
+                .register(meterRegistry)
+                .record(e.getDuration());
+    }
+
+    /**
+     * Get the first application frame from the event stack trace, or the top frame if there is none.
+     */
+    private static String pinnedFrame(RecordedEvent e) {
+        final var stackTrace = e.getStackTrace();
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        RecordedFrame top = null;
+        for (final var f : stackTrace.getFrames()) {
+            if (!f.isJavaFrame()) {
+                continue;
+            }
+            if (top == null) {
+                top = f;
+            }
+            if (f.getMethod().getType().getName().startsWith("com.broadcom.tanzu.demos.swai")) {
+                return toString(f);
+            }
+        }
+        return top == null ? "unknown" : toString(top);
+    }
+
+    private static String toString(RecordedFrame f) {
+        return f.getMethod().getType().getName() + "." + f.getMethod().getName();
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
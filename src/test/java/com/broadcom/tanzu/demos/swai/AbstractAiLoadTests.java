@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.ChatClient;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.Generation;
+import org.springframework.ai.chat.StreamingChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Closed-loop load test for the <code>/ai</code> endpoint: concurrent users send requests in a loop,
+ * with fewer request threads than users.
+ * <p>
+ * Every request goes through {@link SwaiService}: the chat model answers in {@link #MODEL_LATENCY},
+ * after calling a function which reads a planet from SWAPI (stubbed with {@link #SWAPI_LATENCY}).
+ * Planet ids are random, so that most lookups miss the cache. Answers are not cached.
+ * <p>
+ * Load tests are tagged, and only run with the <code>load</code> Maven profile: every variant runs
+ * in the same JVM, with the same heap. The peak heap usage of each run is reported.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "server.tomcat.threads.max=" + AbstractAiLoadTests.THREADS,
+                "app.swapi.url=http://localhost:${wiremock.server.port}",
+                "app.swapi.pool.maxTotal=" + AbstractAiLoadTests.USERS,
+                "app.swapi.pool.maxPerRoute=" + AbstractAiLoadTests.USERS,
+                "app.swapi.hedge.enabled=false",
+                "app.swapi.limiter.enabled=false",
+                "app.swapi.nameIndex.enabled=false",
+                "app.swapi.relationshipIndex.enabled=false",
+                "app.cache.datasetVersionRefresh=0",
+                "app.ai.answerCache.enabled=false"
+        })
+@AutoConfigureWireMock(port = 0)
+abstract class AbstractAiLoadTests {
+    static final int THREADS = 20;
+    static final int USERS = 60;
+    static final Duration MODEL_LATENCY = Duration.ofMillis(50);
+    static final Duration SWAPI_LATENCY = Duration.ofMillis(50);
+    static final Duration LATENCY = MODEL_LATENCY.plus(SWAPI_LATENCY);
+    static final Duration DURATION = Duration.ofSeconds(5);
+
+    /**
+     * Max throughput (in requests per second) when every request holds a request thread.
+     */
+    static final double THREAD_BOUND_THROUGHPUT = THREADS * 1000.0 / LATENCY.toMillis();
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @MockBean
+    private ChatClient chatClient;
+    @MockBean
+    private StreamingChatClient streamingChatClient;
+    @Autowired
+    private Function<SwaiConfig.ByPlanetIdsRequest, List<Planet>> planetsByIds;
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        stubFor(get(urlPathMatching("/planets/\\d+/?"))
+                .willReturn(okJson("""
+                        {
+                           "name":"Tatooine",
+                           "population":"200000",
+                           "residents":[],
+                           "url":"https://swapi.dev/api/planets/1/"
+                        }
+                        """).withFixedDelay((int) SWAPI_LATENCY.toMillis())));
+        when(chatClient.call(any(Prompt.class))).thenAnswer(inv -> {
+            Thread.sleep(MODEL_LATENCY.toMillis());
+            final var planetId = ThreadLocalRandom.current().nextInt(1, 1_000_000);
+            final var planets = planetsByIds.apply(new SwaiConfig.ByPlanetIdsRequest(new int[]{planetId}));
+            return new ChatResponse(List.of(new Generation(planets.get(0).population())));
+        });
+    }
+
+    Result run() throws InterruptedException {
+        final var uri = URI.create("http://localhost:" + port + "/ai?q=load");
+        final var executor = Executors.newFixedThreadPool(USERS);
+        final var client = HttpClient.newBuilder().executor(executor).connectTimeout(Duration.ofSeconds(10)).build();
+        final var latencies = Collections.synchronizedList(new ArrayList<Long>());
+        final var errors = new AtomicLong();
+        final var heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP).toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        final var start = System.nanoTime();
+        final var deadline = start + DURATION.toNanos();
+        for (int i = 0; i < USERS; ++i) {
+            executor.execute(() -> {
+                final var req = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+                while (System.nanoTime() < deadline) {
+                    final var t0 = System.nanoTime();
+                    try {
+                        final var resp = client.send(req, HttpResponse.BodyHandlers.discarding());
+                        if (resp.statusCode() == 200) {
+                            latencies.add(System.nanoTime() - t0);
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(DURATION.toSeconds() + 60, TimeUnit.SECONDS)).isTrue();
+        final var elapsed = Duration.ofNanos(System.nanoTime() - start);
+        final var peakHeap = heapPools.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+
+        final List<Long> sorted;
+        synchronized (latencies) {
+            sorted = new ArrayList<>(latencies);
+        }
+        Collections.sort(sorted);
+        final var result = new Result(sorted, errors.get(), elapsed, peakHeap);
+        logger.info("Requests: {} ok, {} errors in {}: {} req/s, p50={} ms, p99={} ms, peak heap={} MB (max {} MB)",
+                sorted.size(), result.errors(), elapsed, Math.round(result.throughput()),
+                result.percentileMillis(0.5), result.percentileMillis(0.99),
+                peakHeap >> 20, Runtime.getRuntime().maxMemory() >> 20);
+        return result;
+    }
+
+    record Result(List<Long> sortedLatencies, long errors, Duration elapsed, long peakHeapBytes) {
+        double throughput() {
+            return sortedLatencies.size() / (elapsed.toMillis() / 1000.0);
+        }
+
+        long percentileMillis(double p) {
+            if (sortedLatencies.isEmpty()) {
+                return 0;
+            }
+            final var i = Math.max(0, (int) Math.ceil(p * sortedLatencies.size()) - 1);
+            return TimeUnit.NANOSECONDS.toMillis(sortedLatencies.get(i));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * With platform threads, throughput is capped by the request thread pool
+ * (see {@link VirtualAiLoadTests} for virtual threads).
+ */
+class AiLoadTests extends AbstractAiLoadTests {
+    @Test
+    void testThroughputBoundByRequestThreads() throws InterruptedException {
+        final var result = run();
+        assertThat(result.errors()).isZero();
+        assertThat(result.throughput()).isLessThanOrEqualTo(THREAD_BOUND_THROUGHPUT * 1.1);
+        assertThat(result.percentileMillis(0.5)).isGreaterThanOrEqualTo(LATENCY.toMillis() * USERS / THREADS / 2);
+    }
+}
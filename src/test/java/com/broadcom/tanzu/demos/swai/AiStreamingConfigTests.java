@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AiStreamingConfigTests {
+    private final ReactiveAiConfig config = new AiStreamingConfig();
+    private final Scheduler scheduler = config.aiScheduler(2, 10);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void testBlockingCallbackOnEventStream() {
+        final var client = client(MediaType.TEXT_EVENT_STREAM, true);
+        // A function callback invoked while reading chunks may block.
+        final var threads = client.get().uri("/chat").retrieve().bodyToFlux(String.class)
+                .map(chunk -> Mono.fromCallable(() -> Thread.currentThread().getName()).block())
+                .collectList().block();
+        assertThat(threads).isNotEmpty().allMatch(t -> t.startsWith("swai-ai"));
+    }
+
+    @Test
+    void testBlockingCallbackOnEventLoop() {
+        final var client = client(MediaType.TEXT_EVENT_STREAM, false);
+        assertThatThrownBy(() -> client.get().uri("/chat").retrieve().bodyToFlux(String.class)
+                .map(chunk -> Mono.just(chunk).block())
+                .collectList().block())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("blocking");
+    }
+
+    @Test
+    void testOtherResponsesAreNotOffloaded() {
+        final var client = client(MediaType.APPLICATION_JSON, true);
+        final var thread = client.get().uri("/films").retrieve().bodyToMono(String.class)
+                .map(body -> Thread.currentThread().getName())
+                .block();
+        assertThat(thread).doesNotStartWith("swai-ai");
+    }
+
+    /**
+     * Create a client reading responses from a non-blocking thread, like an event loop thread.
+     */
+    private WebClient client(MediaType contentType, boolean offload) {
+        final var builder = WebClient.builder()
+                .exchangeFunction(req -> Mono.fromCallable(() -> ClientResponse.create(HttpStatus.OK)
+                                .header(HttpHeaders.CONTENT_TYPE, contentType.toString())
+                                .body("data:May\n\ndata:the\n\ndata:force\n\n")
+                                .build())
+                        .subscribeOn(Schedulers.parallel()));
+        if (offload) {
+            config.eventStreamOffloadingCustomizer(scheduler).customize(builder);
+        }
+        return builder.build();
+    }
+}
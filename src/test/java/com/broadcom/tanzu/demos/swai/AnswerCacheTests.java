@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.ByteArrayResource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnswerCacheTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+    private AnswerCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache("gpt-3.5-turbo", "Answer questions about Star Wars.");
+    }
+
+    private AnswerCache newCache(String model, String systemPrompt) {
+        final var context = new GenericApplicationContext();
+        context.registerBean(TestChatProperties.class, () -> new TestChatProperties(new TestChatOptions(model, 0f)));
+        context.refresh();
+        return new AnswerCache(new ConcurrentMapCacheManager(), context, new ObjectMapper(),
+                new ByteArrayResource(systemPrompt.getBytes(StandardCharsets.UTF_8)),
+                new ByteArrayResource("{question}".getBytes(StandardCharsets.UTF_8)),
+                meterRegistry);
+    }
+
+    private String answer() {
+        return "answer " + calls.incrementAndGet();
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("swai.answers.cache")
+                .tag("model", "gpt-3.5-turbo").tag("result", result).counter().count();
+    }
+
+    @Test
+    void testNormalize() {
+        assertThat(AnswerCache.normalize("  Who is  Luke's father?! ")).isEqualTo("who is luke s father");
+        assertThat(AnswerCache.normalize("WHO IS LUKE'S FATHER")).isEqualTo("who is luke s father");
+    }
+
+    @Test
+    void testHitAndMiss() {
+        assertThat(cache.get("Who is Luke's father?", this::answer)).isEqualTo("answer 1");
+        assertThat(cache.get("who is luke's father", this::answer)).isEqualTo("answer 1");
+        assertThat(cache.get("Who is Leia's father?", this::answer)).isEqualTo("answer 2");
+        assertThat(count("hit")).isEqualTo(1);
+        assertThat(count("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void testKeyDependsOnPromptAndModel() {
+        assertThat(cache.key("Hello")).isEqualTo(newCache("gpt-3.5-turbo", "Answer questions about Star Wars.").key("Hello"));
+        assertThat(cache.key("Hello")).isNotEqualTo(newCache("gpt-4", "Answer questions about Star Wars.").key("Hello"));
+        assertThat(cache.key("Hello")).isNotEqualTo(newCache("gpt-3.5-turbo", "Be brief.").key("Hello"));
+    }
+
+    @Test
+    void testStream() {
+        final var tokens = Flux.just("Darth", " Vader");
+        assertThat(cache.stream("Who is Luke's father?", () -> tokens).collectList().block())
+                .containsExactly("Darth", " Vader");
+        assertThat(cache.stream("who is luke's father", () -> tokens).collectList().block())
+                .containsExactly("Darth Vader");
+        assertThat(cache.get("Who is Luke's father?", this::answer)).isEqualTo("Darth Vader");
+    }
+
+    @Test
+    void testDataChanged() {
+        cache.get("Who is Luke's father?", this::answer);
+        cache.onDataChanged(new StarWarsDataChangedEvent("v2"));
+        assertThat(cache.get("Who is Luke's father?", this::answer)).isEqualTo("answer 2");
+    }
+
+    @Test
+    void testCoalescing() throws Exception {
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var executor = Executors.newFixedThreadPool(2);
+        try {
+            final var first = executor.submit(() -> cache.get("Who is Luke's father?", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return answer();
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            final var second = executor.submit(() -> cache.get("who is luke's father", this::answer));
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (count("coalesced") < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("answer 1");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("answer 1");
+            assertThat(calls).hasValue(1);
+            assertThat(count("coalesced")).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testStreamCoalescing() throws Exception {
+        final var tokens = Sinks.many().unicast().<String>onBackpressureBuffer();
+        final Supplier<Flux<String>> loader = () -> {
+            calls.incrementAndGet();
+            return tokens.asFlux();
+        };
+        final var first = cache.stream("Who is Luke's father?", loader).collectList().toFuture();
+        tokens.tryEmitNext("Darth");
+        final var second = cache.stream("who is luke's father", loader).collectList().toFuture();
+        tokens.tryEmitNext(" Vader");
+        tokens.tryEmitComplete();
+
+        // Late subscribers get every token.
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly("Darth", " Vader");
+        assertThat(second.get(5, TimeUnit.SECONDS)).containsExactly("Darth", " Vader");
+        assertThat(calls).hasValue(1);
+        assertThat(count("coalesced")).isEqualTo(1);
+        assertThat(cache.get("Who is Luke's father?", this::answer)).isEqualTo("Darth Vader");
+    }
+
+    @ConfigurationProperties("spring.ai.test.chat")
+    static class TestChatProperties {
+        private final TestChatOptions options;
+
+        TestChatProperties(TestChatOptions options) {
+            this.options = options;
+        }
+
+        public TestChatOptions getOptions() {
+            return options;
+        }
+    }
+
+    record TestChatOptions(String model, Float temperature) {
+    }
+}
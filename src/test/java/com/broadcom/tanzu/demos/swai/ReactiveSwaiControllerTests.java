@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.ChatClient;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.Generation;
+import org.springframework.ai.chat.StreamingChatClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveSwaiControllerTests {
+    private final List<Observation.Context> observations = new CopyOnWriteArrayList<>();
+    private final Map<String, List<String>> events = new ConcurrentHashMap<>();
+    private final StreamingChatClient streamingChatClient = mock(StreamingChatClient.class);
+    private Scheduler scheduler;
+    private ReactiveSwaiController controller;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        final var reg = ObservationRegistry.create();
+        reg.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStart(Observation.Context context) {
+                observations.add(context);
+            }
+
+            @Override
+            public void onEvent(Observation.Event event, Observation.Context context) {
+                events.computeIfAbsent(context.getName(), k -> new CopyOnWriteArrayList<>()).add(event.getName());
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+
+        final var svc = new SwaiService(mock(ChatClient.class), streamingChatClient, mock(ObjectProvider.class), reg);
+        ReflectionTestUtils.setField(svc, "systemPromptRes", new ClassPathResource("system-prompt.st"));
+        ReflectionTestUtils.setField(svc, "askPromptRes", new ClassPathResource("ask-prompt.st"));
+        scheduler = Schedulers.newBoundedElastic(2, 10, "swai-ai");
+        controller = new ReactiveSwaiController(svc, reg, scheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void testStreamFraming() {
+        when(streamingChatClient.stream(any())).thenReturn(Flux.just(chunk("May"), chunk(" the"), chunk(""), chunk(" force")));
+        WebTestClient.bindToController(controller).build()
+                .get().uri("/ai/stream?q=hello").accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .expectBody(String.class).isEqualTo("data:May\n\ndata: the\n\ndata: force\n\n");
+    }
+
+    @Test
+    void testPromptObservationIsNested() {
+        when(streamingChatClient.stream(any())).thenReturn(Flux.just(chunk("Yes")));
+        assertThat(controller.streamAI("hello").collectList().block()).hasSize(1);
+
+        final var sendPrompt = observations.stream().filter(o -> "sendPrompt".equals(o.getName())).findFirst().orElseThrow();
+        assertThat(sendPrompt.getParentObservation()).isNotNull();
+        assertThat(sendPrompt.getParentObservation().getContextView().getName()).isEqualTo("askAi");
+    }
+
+    @Test
+    void testDisconnectCancelsUpstream() throws InterruptedException {
+        final var firstToken = new CountDownLatch(1);
+        final var upstreamCancelled = new CountDownLatch(1);
+        when(streamingChatClient.stream(any())).thenReturn(Flux.concat(Flux.just(chunk("May")), Flux.<ChatResponse>never())
+                .doOnCancel(upstreamCancelled::countDown));
+
+        // Disposing the subscription is what the server does when the client disconnects.
+        final var subscription = controller.streamAI("hello").subscribe(e -> firstToken.countDown());
+        assertThat(firstToken.await(5, TimeUnit.SECONDS)).isTrue();
+        subscription.dispose();
+
+        assertThat(upstreamCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(events.get("askAi")).containsExactly("cancelled");
+        assertThat(events.get("sendPrompt")).containsExactly("cancelled");
+    }
+
+    private static ChatResponse chunk(String token) {
+        return new ChatResponse(List.of(new Generation(token)));
+    }
+}
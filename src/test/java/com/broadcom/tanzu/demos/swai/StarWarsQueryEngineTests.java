@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StarWarsQueryEngineTests {
+    private final Planet tatooine = new Planet(1, "Tatooine", "200000");
+    private final Planet alderaan = new Planet(2, "Alderaan", "2,000,000,000");
+    private final Planet hoth = new Planet(4, "Hoth", "unknown");
+    private final People luke = new People(1, "Luke Skywalker", tatooine);
+    private final People vader = new People(4, "Darth Vader", tatooine);
+    private final People leia = new People(5, "Leia Organa", alderaan);
+    private final Film newHope = new Film(1, "A New Hope", 4, LocalDate.of(1977, 5, 25));
+    private final Film empire = new Film(2, "The Empire Strikes Back", 5, LocalDate.of(1980, 5, 17));
+
+    private StarWarsService svc;
+    private StarWarsQueryEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        svc = mock(StarWarsService.class);
+        when(svc.findFilms()).thenReturn(List.of(newHope, empire));
+        when(svc.findPlanets()).thenReturn(List.of(tatooine, alderaan, hoth));
+        when(svc.findPlanetsByFilms(any())).thenReturn(List.of(
+                new FilmPlanets(1, List.of(tatooine, alderaan)),
+                new FilmPlanets(2, List.of(hoth))));
+        when(svc.findCharactersByFilms(any())).thenReturn(List.of(
+                new FilmCharacters(1, List.of(luke, vader, leia)),
+                new FilmCharacters(2, List.of(luke, vader))));
+        engine = new StarWarsQueryEngine(svc, ObservationRegistry.NOOP, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void testJoin() {
+        final var result = engine.execute(new StarWarsQuery("people",
+                List.of(new StarWarsQuery.Condition("films.title", "contains", "hope"),
+                        new StarWarsQuery.Condition("homeworld.population", "gt", "1000000")),
+                List.of("name", "homeworld.name"), null, null, null, false, null));
+        assertThat(result.total()).isEqualTo(1);
+        assertThat(result.rows()).containsExactly(Map.of("name", "Leia Organa", "homeworld.name", "Alderaan"));
+    }
+
+    @Test
+    void testNotEqualOnToManyField() {
+        final var result = engine.execute(new StarWarsQuery("films",
+                List.of(new StarWarsQuery.Condition("characters.name", "ne", "Leia Organa")),
+                null, null, null, null, false, null));
+        assertThat(result.rows()).containsExactly(Map.of("id", 2, "title", "The Empire Strikes Back"));
+    }
+
+    @Test
+    void testGroupAndCount() {
+        final var result = engine.execute(new StarWarsQuery("people", null, null, "homeworld",
+                new StarWarsQuery.Aggregate("count", null), "value", true, null));
+        assertThat(result.rows()).containsExactly(
+                Map.of("homeworld", "Tatooine", "value", 2),
+                Map.of("homeworld", "Alderaan", "value", 1));
+    }
+
+    @Test
+    void testSortAndLimit() {
+        final var result = engine.execute(new StarWarsQuery("planets", null, List.of("name", "residents"),
+                null, null, "population", true, 2));
+        assertThat(result.total()).isEqualTo(3);
+        assertThat(result.rows()).containsExactly(
+                Map.of("name", "Alderaan", "residents", List.of("Leia Organa")),
+                Map.of("name", "Tatooine", "residents", List.of("Luke Skywalker", "Darth Vader")));
+    }
+
+    @Test
+    void testUnknownField() {
+        assertThatThrownBy(() -> engine.execute(new StarWarsQuery("people",
+                List.of(new StarWarsQuery.Condition("homeworld.climate", "eq", "arid")),
+                null, null, null, null, false, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("climate");
+    }
+
+    @Test
+    void testMissingValue() {
+        for (final var op : List.of("contains", "in")) {
+            assertThatThrownBy(() -> engine.execute(new StarWarsQuery("people",
+                    List.of(new StarWarsQuery.Condition("name", op, null)),
+                    null, null, null, null, false, null)))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Missing value");
+        }
+    }
+
+    @Test
+    void testGraphIsReused() {
+        final var query = new StarWarsQuery("films", null, null, null, null, null, false, null);
+        engine.execute(query);
+        engine.execute(query);
+        verify(svc, times(1)).findFilms();
+        verify(svc, times(1)).findPlanetsByFilms(any());
+        verify(svc, never()).findPlanetsByFilm(1);
+
+        engine.onDataChanged(new StarWarsDataChangedEvent("v2"));
+        engine.execute(query);
+        verify(svc, times(2)).findFilms();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.Generation;
+import org.springframework.ai.chat.StreamingChatClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SwaiControllerTests {
+    @MockBean
+    private StreamingChatClient streamingChatClient;
+    @Autowired
+    private WebClient.Builder webClientBuilder;
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void testStreamWithBlockingCallback() {
+        // A chat client built from the auto-configured builder, reading chunks on a non-blocking thread
+        // (like an event loop thread), and invoking a blocking function callback for each chunk.
+        final var chatApi = webClientBuilder.clone()
+                .exchangeFunction(req -> Mono.fromCallable(() -> ClientResponse.create(HttpStatus.OK)
+                                .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE)
+                                .body("data:May\n\ndata:the\n\ndata:force\n\n")
+                                .build())
+                        .subscribeOn(Schedulers.parallel()))
+                .build();
+        when(streamingChatClient.stream(any())).thenAnswer(inv -> chatApi.get().uri("/chat")
+                .retrieve().bodyToFlux(String.class)
+                .map(token -> new ChatResponse(List.of(new Generation(Mono.just(token).block())))));
+
+        WebTestClient.bindToServer().baseUrl("http://localhost:" + port).build()
+                .get().uri("/ai/stream?q=blocking-callback").accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("data:May\n\ndata:the\n\ndata:force\n\n");
+    }
+}
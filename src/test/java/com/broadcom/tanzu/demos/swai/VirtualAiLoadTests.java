@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Same load as {@link AiLoadTests} with virtual threads: requests no longer hold a thread
+ * from a bounded pool while waiting for the chat model and SWAPI.
+ * <p>
+ * Virtual threads require a Java 21+ runtime: the <code>load</code> Maven profile enforces it.
+ */
+@ActiveProfiles("virtual")
+class VirtualAiLoadTests extends AbstractAiLoadTests {
+    @Test
+    void testThroughputNotBoundByRequestThreads() throws InterruptedException {
+        final var result = run();
+        assertThat(result.errors()).isZero();
+        assertThat(result.throughput()).isGreaterThan(THREAD_BOUND_THROUGHPUT * 1.5);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveLimiterInterceptorTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private IntSupplier proxy(IntSupplier target, AdaptiveLimiterInterceptor limiter) {
+        final var pf = new ProxyFactory(target);
+        pf.addInterface(IntSupplier.class);
+        pf.addAdvice(limiter);
+        return (IntSupplier) pf.getProxy();
+    }
+
+    @Test
+    void testAdditiveIncreaseMultiplicativeDecrease() {
+        final var limiter = new AdaptiveLimiterInterceptor("test", 4, 1, 8, 0.5,
+                Duration.ofSeconds(10), 0, Duration.ZERO, meterRegistry);
+        final var ok = proxy(() -> 1, limiter);
+        for (int i = 0; i < 20; ++i) {
+            ok.getAsInt();
+        }
+        assertThat(limiter.limit()).isGreaterThan(5);
+        assertThat(meterRegistry.get("swai.limiter.limit").gauge().value()).isEqualTo(limiter.limit());
+
+        final var before = limiter.limit();
+        final var failing = proxy(() -> {
+            throw new IllegalStateException("Throttled");
+        }, limiter);
+        assertThatThrownBy(failing::getAsInt).isInstanceOf(IllegalStateException.class);
+        assertThat(limiter.limit()).isEqualTo(before * 0.5);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void testRejectWhenQueueIsFull() throws Exception {
+        final var limiter = new AdaptiveLimiterInterceptor("test", 1, 1, 1, 0.5,
+                Duration.ofSeconds(10), 0, Duration.ZERO, meterRegistry);
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var blocking = proxy(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        }, limiter);
+        final var call = CompletableFuture.supplyAsync(blocking::getAsInt);
+        started.await();
+
+        assertThatThrownBy(blocking::getAsInt).isInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+        assertThat(call.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testInterruptWhileQueued() throws Exception {
+        final var limiter = new AdaptiveLimiterInterceptor("test", 1, 1, 1, 0.5,
+                Duration.ofSeconds(10), 1, Duration.ofSeconds(30), meterRegistry);
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var blocking = proxy(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        }, limiter);
+        final var call = CompletableFuture.supplyAsync(blocking::getAsInt);
+        started.await();
+
+        final var error = new AtomicReference<Throwable>();
+        final var interruptFlag = new AtomicBoolean();
+        final var queued = new Thread(() -> {
+            try {
+                blocking.getAsInt();
+            } catch (Throwable e) {
+                error.set(e);
+                interruptFlag.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        queued.start();
+        while (limiter.queued() == 0) {
+            Thread.onSpinWait();
+        }
+        queued.interrupt();
+        queued.join();
+
+        assertThat(error.get()).isInstanceOf(CancellationException.class)
+                .hasCauseInstanceOf(InterruptedException.class);
+        assertThat(interruptFlag).isTrue();
+        release.countDown();
+        assertThat(call.get()).isEqualTo(1);
+    }
+}
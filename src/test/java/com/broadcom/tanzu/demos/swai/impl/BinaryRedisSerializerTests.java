@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.Planet;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class BinaryRedisSerializerTests {
+    private final BinaryRedisSerializer serializer = new BinaryRedisSerializer(
+            CacheConfig.jsonSerializer(JsonMapper.builder().findAndAddModules().build()), 512);
+
+    @Test
+    void testRoundTrip() {
+        final var films = List.of(new Film(1, "A New Hope", 4, LocalDate.of(1977, 5, 25)));
+        assertThat(serializer.deserialize(serializer.serialize(films))).isEqualTo(films);
+
+        final var characters = CacheSerializerBenchmark.sampleCharacters();
+        assertThat(serializer.deserialize(serializer.serialize(characters))).isEqualTo(characters);
+    }
+
+    @Test
+    void testCachedValue() {
+        final var value = new CachedValue(CacheSerializerBenchmark.sampleCharacters(), 1712345678901L);
+        assertThat(serializer.deserialize(serializer.serialize(value))).isEqualTo(value);
+
+        final var people = new CachedValue(new CachedPeople(1, "Luke Skywalker", 1), 1712345678901L);
+        assertThat(serializer.deserialize(serializer.serialize(people))).isEqualTo(people);
+
+        final var planet = new Validated<>(new Planet(1, "Tatooine", "200000"), "\"abc\"", null);
+        assertThat(serializer.deserialize(serializer.serialize(planet))).isEqualTo(planet);
+    }
+
+    @Test
+    void testSwapiFilm() {
+        final var film = new SwapiFilm("A New Hope", 4, new SwapiRef(SwapiKind.FILMS, 1),
+                SwapiRefs.of(SwapiKind.PEOPLE, 1, 2, 3), SwapiRefs.of(SwapiKind.PLANETS, 1), LocalDate.of(1977, 5, 25));
+        assertThat(serializer.deserialize(serializer.serialize(film))).isEqualTo(film);
+
+        final var json = CacheConfig.jsonSerializer(JsonMapper.builder().findAndAddModules().build());
+        assertThat(json.deserialize(json.serialize(film))).isEqualTo(film);
+    }
+
+    @Test
+    void testKindCodes() {
+        // Codes are persisted in Redis entries: they must not follow enum declaration order.
+        assertThat(SwapiKind.FILMS.code()).isEqualTo((byte) 0);
+        assertThat(SwapiKind.PEOPLE.code()).isEqualTo((byte) 1);
+        assertThat(SwapiKind.PLANETS.code()).isEqualTo((byte) 2);
+        assertThat(SwapiKind.SPECIES.code()).isEqualTo((byte) 3);
+        assertThat(SwapiKind.STARSHIPS.code()).isEqualTo((byte) 4);
+        assertThat(SwapiKind.VEHICLES.code()).isEqualTo((byte) 5);
+        for (final var k : SwapiKind.values()) {
+            assertThat(SwapiKind.fromCode(k.code())).isSameAs(k);
+        }
+        assertThatIllegalArgumentException().isThrownBy(() -> SwapiKind.fromCode((byte) 42));
+    }
+
+    @Test
+    void testUnsupportedTag() {
+        // Tag 8 is the retired SWAPI film layout with URL references.
+        assertThatExceptionOfType(SerializationException.class)
+                .isThrownBy(() -> serializer.deserialize(new byte[]{0, 8}));
+    }
+
+    @Test
+    void testCompression() {
+        final var characters = CacheSerializerBenchmark.sampleCharacters();
+        final var compressed = serializer.serialize(characters);
+        final var plain = new BinaryRedisSerializer(
+                CacheConfig.jsonSerializer(JsonMapper.builder().findAndAddModules().build()), -1).serialize(characters);
+        assertThat(compressed.length).isLessThan(plain.length);
+        assertThat(serializer.deserialize(compressed)).isEqualTo(characters);
+    }
+
+    @Test
+    void testFallback() {
+        final var value = new HashMap<>(Map.of("answer", 42));
+        assertThat(serializer.deserialize(serializer.serialize(value))).isEqualTo(value);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.People;
+import com.broadcom.tanzu.demos.swai.Planet;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Redis cache serializers on a list of characters.
+ * <p>
+ * Run with:
+ * <code>./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.broadcom.tanzu.demos.swai.impl.CacheSerializerBenchmark</code>
+ * <p>
+ * Encoded sizes are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+    @Param({"json", "binary", "binary-lz4"})
+    public String serializer;
+
+    private RedisSerializer<Object> s;
+    private List<People> characters;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        final var json = CacheConfig.jsonSerializer(JsonMapper.builder().findAndAddModules().build());
+        s = switch (serializer) {
+            case "json" -> json;
+            case "binary" -> new BinaryRedisSerializer(json, -1);
+            case "binary-lz4" -> new BinaryRedisSerializer(json, 0);
+            default -> throw new IllegalArgumentException("Unsupported serializer: " + serializer);
+        };
+        characters = sampleCharacters();
+        encoded = s.serialize(characters);
+        System.out.printf("%nEncoded size with %s: %d bytes%n", serializer, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return s.serialize(characters);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return s.deserialize(encoded);
+    }
+
+    static List<People> sampleCharacters() {
+        final var tatooine = new Planet(1, "Tatooine", "200000");
+        final var alderaan = new Planet(2, "Alderaan", "2000000000");
+        final var stewjon = new Planet(20, "Stewjon", "unknown");
+        final var eriadu = new Planet(21, "Eriadu", "22000000000");
+        final var corellia = new Planet(22, "Corellia", "3000000000");
+        final var kashyyyk = new Planet(14, "Kashyyyk", "45000000");
+        final var naboo = new Planet(8, "Naboo", "4500000000");
+        final var characters = new ArrayList<People>();
+        characters.add(new People(1, "Luke Skywalker", tatooine));
+        characters.add(new People(2, "C-3PO", tatooine));
+        characters.add(new People(3, "R2-D2", naboo));
+        characters.add(new People(4, "Darth Vader", tatooine));
+        characters.add(new People(5, "Leia Organa", alderaan));
+        characters.add(new People(6, "Owen Lars", tatooine));
+        characters.add(new People(7, "Beru Whitesun lars", tatooine));
+        characters.add(new People(8, "R5-D4", tatooine));
+        characters.add(new People(9, "Biggs Darklighter", tatooine));
+        characters.add(new People(10, "Obi-Wan Kenobi", stewjon));
+        characters.add(new People(12, "Wilhuff Tarkin", eriadu));
+        characters.add(new People(13, "Chewbacca", kashyyyk));
+        characters.add(new People(14, "Han Solo", corellia));
+        characters.add(new People(15, "Greedo", new Planet(23, "Rodia", "1300000000")));
+        characters.add(new People(16, "Jabba Desilijic Tiure", new Planet(24, "Nal Hutta", "7000000000")));
+        characters.add(new People(18, "Wedge Antilles", corellia));
+        characters.add(new People(19, "Jek Tono Porkins", new Planet(26, "Bestine IV", "62000000")));
+        characters.add(new People(81, "Raymus Antilles", alderaan));
+        return characters;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CacheSerializerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
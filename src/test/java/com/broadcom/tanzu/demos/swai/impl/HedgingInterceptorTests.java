@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Timeout(10)
+class HedgingInterceptorTests {
+    private static final int WARMUP_CALLS = 20;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HedgingInterceptor hedging = new HedgingInterceptor("test", 0.95, Duration.ofMillis(10), 0.1, 4,
+            false, ObservationRegistry.NOOP, meterRegistry);
+
+    @AfterEach
+    void destroy() {
+        hedging.destroy();
+    }
+
+    interface Lookup {
+        String lookup(int id);
+    }
+
+    /**
+     * Create a proxy calling the target, after enough fast calls to compute a hedging delay.
+     */
+    private Lookup newWarmLookup(Lookup target) {
+        final var warmup = new AtomicInteger();
+        final Lookup warmTarget = id -> warmup.getAndIncrement() < WARMUP_CALLS ? "fast" : target.lookup(id);
+        final var pf = new ProxyFactory(warmTarget);
+        pf.addInterface(Lookup.class);
+        pf.addAdvice(hedging);
+        final var lookup = (Lookup) pf.getProxy();
+        for (int i = 0; i < WARMUP_CALLS; ++i) {
+            assertThat(lookup.lookup(i)).isEqualTo("fast");
+        }
+        return lookup;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void testHedgeSlowCall() throws InterruptedException {
+        final var calls = new AtomicInteger();
+        final var primaryThread = new AtomicReference<Thread>();
+        final var primaryCancelled = new CountDownLatch(1);
+        final var lookup = newWarmLookup(id -> {
+            if (calls.incrementAndGet() == 1) {
+                primaryThread.set(Thread.currentThread());
+                try {
+                    // Never completes, unless the call is cancelled.
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    primaryCancelled.countDown();
+                }
+                return "slow";
+            }
+            return "fast";
+        });
+
+        assertThat(lookup.lookup(21)).isEqualTo("fast");
+        assertThat(primaryThread.get()).isNotSameAs(Thread.currentThread());
+        assertThat(primaryCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        assertThat(meterRegistry.get("swai.calls.hedged").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("swai.calls.hedged.won").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testHedgeSlowCallIgnoringInterrupts() throws InterruptedException {
+        final var calls = new AtomicInteger();
+        final var release = new AtomicBoolean();
+        final var primaryReturned = new CountDownLatch(1);
+        final var lookup = newWarmLookup(id -> {
+            if (calls.incrementAndGet() == 1) {
+                // Like a blocking socket read: interrupts are not seen.
+                while (!release.get()) {
+                    Thread.onSpinWait();
+                }
+                primaryReturned.countDown();
+                return "slow";
+            }
+            return "fast";
+        });
+
+        try {
+            assertThat(lookup.lookup(21)).isEqualTo("fast");
+            assertThat(primaryReturned.getCount()).isEqualTo(1);
+            assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        } finally {
+            release.set(true);
+        }
+        assertThat(primaryReturned.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void testCancelHedgeWhenPrimaryCompletesFirst() throws InterruptedException {
+        final var calls = new AtomicInteger();
+        final var hedgeStarted = new CountDownLatch(1);
+        final var hedgeCancelled = new CountDownLatch(1);
+        final var lookup = newWarmLookup(id -> {
+            if (calls.incrementAndGet() == 1) {
+                await(hedgeStarted);
+                return "primary";
+            }
+            hedgeStarted.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                hedgeCancelled.countDown();
+            }
+            return "hedge";
+        });
+
+        assertThat(lookup.lookup(21)).isEqualTo("primary");
+        assertThat(hedgeCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("swai.calls.hedged.won").counter().count()).isZero();
+    }
+
+    @Test
+    void testUseHedgeWhenPrimaryFails() {
+        final var calls = new AtomicInteger();
+        final var hedgeStarted = new CountDownLatch(1);
+        final var lookup = newWarmLookup(id -> {
+            if (calls.incrementAndGet() == 1) {
+                await(hedgeStarted);
+                throw new IllegalStateException("primary failed");
+            }
+            hedgeStarted.countDown();
+            return "hedge";
+        });
+        assertThat(lookup.lookup(21)).isEqualTo("hedge");
+    }
+}
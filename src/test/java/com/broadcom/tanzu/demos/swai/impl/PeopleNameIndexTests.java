@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PeopleNameIndexTests {
+    private final PeopleNameIndex index = new PeopleNameIndex(List.of(
+            new CachedPeople(1, "Luke Skywalker", 1),
+            new CachedPeople(4, "Darth Vader", 1),
+            new CachedPeople(11, "Anakin Skywalker", 1),
+            new CachedPeople(43, "Shmi Skywalker", 1),
+            new CachedPeople(42, "Quarsh Panaka", 8),
+            new CachedPeople(67, "Dormé", 8)
+    ), 5);
+
+    @Test
+    void testExactMatchFirst() {
+        assertThat(index.search("shmi skywalker")).containsExactly(43);
+        assertThat(index.search("  LUKE   Skywalker ")).containsExactly(1);
+    }
+
+    @Test
+    void testPrefix() {
+        assertThat(index.search("sky")).containsExactly(1, 11, 43);
+        assertThat(index.search("luke sky")).containsExactly(1);
+        assertThat(index.search("dorme")).containsExactly(67);
+    }
+
+    @Test
+    void testSubstring() {
+        assertThat(index.search("walk")).containsExactly(1, 11, 43);
+        assertThat(index.search("ad")).containsExactly(4);
+    }
+
+    @Test
+    void testFuzzy() {
+        assertThat(index.search("Luk Skywalkr")).containsExactly(1);
+        assertThat(index.search("Vadr")).containsExactly(4);
+        assertThat(index.search("Yoda")).isEmpty();
+    }
+
+    @Test
+    void testEmptyQueryMatchesEveryone() {
+        assertThat(index.search("")).hasSize(6);
+    }
+}
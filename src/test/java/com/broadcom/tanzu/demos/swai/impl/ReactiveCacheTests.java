@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReactiveCacheTests {
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, Object> redis = mock(ReactiveRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveValueOperations<String, Object> ops = mock(ReactiveValueOperations.class);
+    private final ReactiveCache cache = new ReactiveCache(redis, "reactive::", Duration.ofMinutes(10));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(redis.opsForValue()).thenReturn(ops);
+        when(ops.set(any(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+    }
+
+    private Mono<String> load() {
+        return Mono.fromSupplier(() -> "loaded-" + loads.incrementAndGet());
+    }
+
+    @Test
+    void testHit() {
+        when(ops.get("reactive::films::1")).thenReturn(Mono.just("cached"));
+        assertThat(cache.get("films", 1, this::load).block()).isEqualTo("cached");
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void testMiss() {
+        when(ops.get("reactive::films::1")).thenReturn(Mono.empty());
+        assertThat(cache.get("films", 1, this::load).block()).isEqualTo("loaded-1");
+        verify(ops).set("reactive::films::1", "loaded-1", Duration.ofMinutes(10));
+    }
+
+    @Test
+    void testIgnoreCacheErrors() {
+        when(ops.get("reactive::films::1")).thenReturn(Mono.error(new RedisConnectionFailureException("Down")));
+        when(ops.set(any(), any(), any(Duration.class))).thenReturn(Mono.error(new RedisConnectionFailureException("Down")));
+        assertThat(cache.get("films", 1, this::load).block()).isEqualTo("loaded-1");
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Timeout(10)
+class ReactiveResilienceTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger subscriptions = new AtomicInteger();
+
+    interface ReactiveCall {
+        Mono<Integer> findPeopleById();
+    }
+
+    private ReactiveCall proxy(ReactiveCall target, MethodInterceptor... interceptors) {
+        final var pf = new ProxyFactory(target);
+        pf.addInterface(ReactiveCall.class);
+        for (final var interceptor : interceptors) {
+            pf.addAdvice(interceptor);
+        }
+        return (ReactiveCall) pf.getProxy();
+    }
+
+    private static WebClientResponseException error(HttpStatus status) {
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(),
+                HttpHeaders.EMPTY, new byte[0], null);
+    }
+
+    @Test
+    void testRetryTransientErrorsOnSubscribe() {
+        final var retry = new RetryInterceptor("test", 3, Duration.ofMillis(1), Duration.ofMillis(5), 0.1, meterRegistry);
+        final var call = proxy(() -> Mono.defer(() -> subscriptions.incrementAndGet() < 3
+                ? Mono.error(error(HttpStatus.SERVICE_UNAVAILABLE)) : Mono.just(42)), retry);
+
+        final var result = call.findPeopleById();
+        assertThat(subscriptions).hasValue(0);
+        assertThat(result.block()).isEqualTo(42);
+        assertThat(subscriptions).hasValue(3);
+        assertThat(meterRegistry.get("swai.calls.retried").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testDoNotRetryClientErrors() {
+        final var retry = new RetryInterceptor("test", 3, Duration.ofMillis(1), Duration.ofMillis(5), 0.1, meterRegistry);
+        final var call = proxy(() -> Mono.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Mono.error(error(HttpStatus.NOT_FOUND));
+        }), retry);
+
+        assertThatThrownBy(() -> call.findPeopleById().block()).isInstanceOf(WebClientResponseException.NotFound.class);
+        assertThat(subscriptions).hasValue(1);
+    }
+
+    @Test
+    void testOpenBreakerOnTransientErrors() {
+        final var breaker = new CircuitBreakerInterceptor("test", 10, 2, 0.5, Duration.ofHours(1), 1, meterRegistry);
+        final var call = proxy(() -> Mono.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Mono.error(error(HttpStatus.BAD_GATEWAY));
+        }), breaker);
+
+        for (int i = 0; i < 2; ++i) {
+            assertThatThrownBy(() -> call.findPeopleById().block()).isInstanceOf(WebClientResponseException.class);
+        }
+        assertThatThrownBy(() -> call.findPeopleById().block())
+                .isInstanceOf(CircuitBreakerInterceptor.CallNotPermittedException.class);
+        assertThat(subscriptions).hasValue(2);
+        assertThat(breaker.breakers()).singleElement()
+                .satisfies(b -> assertThat(b.state()).isEqualTo(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    void testLimiterWaitsOffEventLoop() {
+        final var limiter = new AdaptiveLimiterInterceptor("test", 1, 1, 1, 0.5,
+                Duration.ofSeconds(10), 1, Duration.ofSeconds(5), meterRegistry);
+        final var pending = Sinks.<Integer>one();
+        final var call = proxy(() -> Mono.defer(() -> subscriptions.incrementAndGet() == 1
+                ? pending.asMono() : Mono.just(2)), limiter);
+
+        final var first = call.findPeopleById().toFuture();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+
+        // No call slot is available: subscribing must not block the subscriber thread.
+        final var second = call.findPeopleById().subscribeOn(Schedulers.single()).toFuture();
+        while (limiter.queued() == 0) {
+            Thread.onSpinWait();
+        }
+        assertThat(second).isNotDone();
+
+        pending.tryEmitValue(1);
+        assertThat(first.join()).isEqualTo(1);
+        assertThat(second.join()).isEqualTo(2);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void testLimiterReleasesCancelledCalls() {
+        final var limiter = new AdaptiveLimiterInterceptor("test", 1, 1, 1, 0.5,
+                Duration.ofSeconds(10), 0, Duration.ZERO, meterRegistry);
+        final var call = proxy(Mono::never, limiter);
+
+        final var subscription = call.findPeopleById().subscribe();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        subscription.dispose();
+        assertThat(limiter.inFlight()).isZero();
+        assertThat(limiter.limit()).isEqualTo(1);
+    }
+}
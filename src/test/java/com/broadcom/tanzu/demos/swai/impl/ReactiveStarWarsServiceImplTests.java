@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.FilmCharacters;
+import com.broadcom.tanzu.demos.swai.FilmPlanets;
+import com.broadcom.tanzu.demos.swai.People;
+import com.broadcom.tanzu.demos.swai.Planet;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReactiveStarWarsServiceImplTests {
+    private final ReactiveSwapi api = mock(ReactiveSwapi.class);
+    private final ReactiveCache cache = mock(ReactiveCache.class);
+    private final ReactiveStarWarsServiceImpl sws = new ReactiveStarWarsServiceImpl(api, cache, 4, ObservationRegistry.NOOP);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // Every lookup is a cache miss.
+        when(cache.get(any(), any(), any())).thenAnswer(inv -> ((Supplier<Mono<?>>) inv.getArgument(2)).get());
+
+        when(api.findFilmById(anyInt())).thenAnswer(inv -> Mono.error(WebClientResponseException.create(
+                HttpStatus.NOT_FOUND.value(), "Not Found", HttpHeaders.EMPTY, new byte[0], null)));
+        when(api.findFilmById(1)).thenReturn(Mono.just(film(1, new int[]{1, 2}, new int[]{1})));
+        when(api.findFilmById(2)).thenReturn(Mono.just(film(2, new int[]{2, 3}, new int[]{1, 2})));
+        when(api.findPlanetById(anyInt())).thenAnswer(inv -> {
+            final int id = inv.getArgument(0);
+            return Mono.just(new SwapiPlanet("Planet " + id, "1000",
+                    new SwapiRef(SwapiKind.PLANETS, id), SwapiRefs.of(SwapiKind.PEOPLE)));
+        });
+        when(api.findPeopleById(anyInt())).thenAnswer(inv -> {
+            final int id = inv.getArgument(0);
+            return Mono.just(new SwapiPeople("People " + id, new SwapiRef(SwapiKind.PLANETS, 1),
+                    new SwapiRef(SwapiKind.PEOPLE, id)));
+        });
+    }
+
+    private static SwapiFilm film(int id, int[] characters, int[] planets) {
+        return new SwapiFilm("Film " + id, id, new SwapiRef(SwapiKind.FILMS, id),
+                SwapiRefs.of(SwapiKind.PEOPLE, characters), SwapiRefs.of(SwapiKind.PLANETS, planets),
+                LocalDate.of(1977, 5, 25));
+    }
+
+    @Test
+    void testFindPlanetsByFilm() {
+        assertThat(sws.findPlanetsByFilm(2).collectList().block()).containsExactly(
+                new Planet(1, "Planet 1", "1000"), new Planet(2, "Planet 2", "1000"));
+    }
+
+    @Test
+    void testFindCharactersByFilms() {
+        final var homeworld = new Planet(1, "Planet 1", "1000");
+        final var p1 = new People(1, "People 1", homeworld);
+        final var p2 = new People(2, "People 2", homeworld);
+        final var p3 = new People(3, "People 3", homeworld);
+        assertThat(sws.findCharactersByFilms(new int[]{1, 2}).collectList().block()).containsExactly(
+                new FilmCharacters(1, List.of(p1, p2)), new FilmCharacters(2, List.of(p2, p3)));
+
+        // Characters shared by several films are fetched once.
+        verify(api, times(1)).findPeopleById(2);
+    }
+
+    @Test
+    void testFindPlanetsByFilms() {
+        final var planet1 = new Planet(1, "Planet 1", "1000");
+        final var planet2 = new Planet(2, "Planet 2", "1000");
+        assertThat(sws.findPlanetsByFilms(new int[]{1, 2}).collectList().block()).containsExactly(
+                new FilmPlanets(1, List.of(planet1)), new FilmPlanets(2, List.of(planet1, planet2)));
+
+        // Planets shared by several films are fetched once.
+        verify(api, times(1)).findPlanetById(1);
+    }
+
+    @Test
+    void testUnknownFilm() {
+        assertThatThrownBy(() -> sws.findCharactersByFilm(42).collectList().block())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown film id: 42");
+        verify(cache).get(eq("films"), eq(42), any());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.swapi.url=http://localhost:${wiremock.server.port}",
+        "app.swapi.retry.initialBackoff=1ms"
+})
+@ActiveProfiles("reactive")
+@AutoConfigureWireMock(port = 0)
+class ReactiveSwapiTests {
+    @Autowired
+    private ReactiveSwapi api;
+
+    @Test
+    void testRetryTransientError() {
+        stubFor(get(urlEqualTo("/planets/1")).inScenario("outage")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(503))
+                .willSetStateTo("recovered"));
+        stubFor(get(urlEqualTo("/planets/1")).inScenario("outage")
+                .whenScenarioStateIs("recovered")
+                .willReturn(aResponse().withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("""
+                                {
+                                    "name": "Tatooine",
+                                    "population": "200000",
+                                    "residents": [
+                                        "https://swapi.dev/api/people/1/"
+                                    ],
+                                    "url": "https://swapi.dev/api/planets/1/"
+                                }
+                                """)));
+
+        assertThat(api.findPlanetById(1).block()).isEqualTo(
+                new SwapiPlanet("Tatooine", "200000",
+                        new SwapiRef(SwapiKind.PLANETS, 1), SwapiRefs.of(SwapiKind.PEOPLE, 1)));
+        verify(2, getRequestedFor(urlEqualTo("/planets/1")));
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RelationshipIndexTests {
+    private final RelationshipIndex index = new RelationshipIndex(
+            Map.of(1, new int[]{1, 2}, 2, new int[]{2}),
+            Map.of(1, new int[]{5, 1}, 3, new int[]{1}),
+            Map.of(1, new int[]{1}, 2, new int[]{5}, 7, new int[0]));
+
+    @Test
+    void testForward() {
+        assertThat(index.planetsByFilm(1)).containsExactly(1, 2);
+        assertThat(index.charactersByFilm(1)).containsExactly(5, 1);
+        assertThat(index.residentsByPlanet(7)).isEmpty();
+    }
+
+    @Test
+    void testReverse() {
+        assertThat(index.filmsByPlanet(2)).containsExactly(1, 2);
+        assertThat(index.filmsByCharacter(1)).containsExactly(1, 3);
+        assertThat(index.filmsByCharacter(5)).containsExactly(1);
+    }
+
+    @Test
+    void testUnknownIds() {
+        assertThat(index.planetsByFilm(3)).isNull();
+        assertThat(index.charactersByFilm(42)).isNull();
+        assertThat(index.residentsByPlanet(-1)).isNull();
+        assertThat(index.filmsByPlanet(42)).isEmpty();
+        assertThat(index.filmsByCharacter(-1)).isEmpty();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryInterceptorTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Long> backoffs = new ArrayList<>();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private IntSupplier proxy(IntSupplier target, RetryInterceptor retry) {
+        final var pf = new ProxyFactory(target);
+        pf.addInterface(IntSupplier.class);
+        pf.addAdvice(retry);
+        return (IntSupplier) pf.getProxy();
+    }
+
+    private RetryInterceptor newRetry(int maxAttempts, double budget) {
+        return new RetryInterceptor("test", maxAttempts, Duration.ofMillis(100), Duration.ofMillis(250), budget,
+                meterRegistry, backoffs::add);
+    }
+
+    @Test
+    void testRetryTransientErrors() {
+        final var call = proxy(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return 42;
+        }, newRetry(3, 0.1));
+        assertThat(call.getAsInt()).isEqualTo(42);
+        assertThat(attempts).hasValue(3);
+        assertThat(meterRegistry.get("swai.calls.retried").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testGiveUpAfterMaxAttempts() {
+        final var call = proxy(() -> {
+            attempts.incrementAndGet();
+            throw new ResourceAccessException("Connection reset");
+        }, newRetry(4, 0.1));
+        assertThatThrownBy(call::getAsInt).isInstanceOf(ResourceAccessException.class);
+        assertThat(attempts).hasValue(4);
+
+        // Exponential backoff with full jitter, capped by the max backoff.
+        assertThat(backoffs).hasSize(3);
+        assertThat(backoffs.get(0)).isBetween(0L, 100L);
+        assertThat(backoffs.get(1)).isBetween(0L, 200L);
+        assertThat(backoffs.get(2)).isBetween(0L, 250L);
+    }
+
+    @Test
+    void testDoNotRetryClientErrors() {
+        final var call = proxy(() -> {
+            attempts.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }, newRetry(3, 0.1));
+        assertThatThrownBy(call::getAsInt).isInstanceOf(HttpClientErrorException.class);
+        assertThat(attempts).hasValue(1);
+        assertThat(backoffs).isEmpty();
+    }
+
+    @Test
+    void testRetryThrottling() {
+        final var call = proxy(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS);
+            }
+            return 1;
+        }, newRetry(3, 0.1));
+        assertThat(call.getAsInt()).isEqualTo(1);
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void testRetryBudget() {
+        // Without budget, the 10 initial retry tokens are spent and then no more retries are sent.
+        final var call = proxy(() -> {
+            attempts.incrementAndGet();
+            throw new ResourceAccessException("Connection reset");
+        }, newRetry(2, 0));
+        for (int i = 0; i < 15; ++i) {
+            assertThatThrownBy(call::getAsInt).isInstanceOf(ResourceAccessException.class);
+        }
+        assertThat(attempts).hasValue(15 + 10);
+        assertThat(meterRegistry.get("swai.calls.retry.rejected").counter().count()).isEqualTo(5);
+    }
+}
@@ -17,6 +17,7 @@
 package com.broadcom.tanzu.demos.swai.impl;
 
 import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.FilmCharacters;
 import com.broadcom.tanzu.demos.swai.People;
 import com.broadcom.tanzu.demos.swai.Planet;
 import com.broadcom.tanzu.demos.swai.StarWarsService;
@@ -31,9 +32,16 @@ import java.util.List;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+// Indexes and version tracking are disabled: every request comes from a lookup, and hits the stubbed SWAPI resources.
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
-        properties = "app.swapi.url=http://localhost:${wiremock.server.port}")
+        properties = {
+                "app.swapi.url=http://localhost:${wiremock.server.port}",
+                "app.swapi.nameIndex.enabled=false",
+                "app.swapi.relationshipIndex.enabled=false",
+                "app.cache.datasetVersionRefresh=0"
+        })
 @AutoConfigureWireMock(port = 0)
 class StarWarsServiceImplTests {
     @Autowired
@@ -775,6 +783,70 @@ class StarWarsServiceImplTests {
         assertThat(characters).containsExactlyInAnyOrderElementsOf(expectedCharacters);
     }
 
+    @Test
+    void testFindCharactersByFilms() {
+        stubFor(get(urlEqualTo("/films/7"))
+                .willReturn(aResponse().withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("""
+                                {
+                                   "title":"Film 7",
+                                   "episode_id":7,
+                                   "release_date":"2015-12-18",
+                                   "characters":[
+                                      "https://swapi.dev/api/people/71/",
+                                      "https://swapi.dev/api/people/72/"
+                                   ],
+                                   "planets":[],
+                                   "url":"https://swapi.dev/api/films/7/"
+                                }
+                                """)));
+        stubFor(get(urlEqualTo("/films/8"))
+                .willReturn(aResponse().withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("""
+                                {
+                                   "title":"Film 8",
+                                   "episode_id":8,
+                                   "release_date":"2017-12-15",
+                                   "characters":[
+                                      "https://swapi.dev/api/people/72/"
+                                   ],
+                                   "planets":[],
+                                   "url":"https://swapi.dev/api/films/8/"
+                                }
+                                """)));
+        for (final var id : List.of(71, 72)) {
+            stubFor(get(urlEqualTo("/people/" + id))
+                    .willReturn(aResponse().withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                            .withBody("""
+                                    {
+                                       "name":"People %d",
+                                       "homeworld":"https://swapi.dev/api/planets/71/",
+                                       "url":"https://swapi.dev/api/people/%d/"
+                                    }
+                                    """.formatted(id, id))));
+        }
+        stubFor(get(urlEqualTo("/planets/71"))
+                .willReturn(aResponse().withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("""
+                                {
+                                   "name":"Jakku",
+                                   "population":"unknown",
+                                   "residents":[],
+                                   "url":"https://swapi.dev/api/planets/71/"
+                                }
+                                """)));
+
+        final var jakku = new Planet(71, "Jakku", "unknown");
+        final var p71 = new People(71, "People 71", jakku);
+        final var p72 = new People(72, "People 72", jakku);
+        assertThat(sws.findCharactersByFilms(new int[]{7, 8})).containsExactly(
+                new FilmCharacters(7, List.of(p71, p72)), new FilmCharacters(8, List.of(p72)));
+        assertThat(sws.findPeopleByIds(new int[]{72, 71})).containsExactly(p72, p71);
+
+        // Characters shared by several films are fetched once.
+        verify(lessThanOrExactly(1), getRequestedFor(urlEqualTo("/people/72")));
+    }
+
     @Test
     void testFindResidentsByPlanet() {
         stubFor(get(urlEqualTo("/people/1"))
@@ -946,4 +1018,37 @@ class StarWarsServiceImplTests {
         assertThat(planets).isNotEmpty();
         assertThat(planets).containsExactlyInAnyOrderElementsOf(expectedPlanets);
     }
+
+    @Test
+    void testFindFilmsByUnknownCharacter() {
+        stubFor(get(urlEqualTo("/films/"))
+                .willReturn(aResponse().withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("""
+                                {
+                                   "count":1,
+                                   "next":null,
+                                   "previous":null,
+                                   "results":[
+                                      {
+                                         "title":"A New Hope",
+                                         "episode_id":4,
+                                         "release_date":"1977-05-25",
+                                         "characters":["https://swapi.dev/api/people/1/"],
+                                         "planets":["https://swapi.dev/api/planets/1/"],
+                                         "url":"https://swapi.dev/api/films/1/"
+                                      }
+                                   ]
+                                }
+                                """)));
+        stubFor(get(urlEqualTo("/people/9999")).willReturn(aResponse().withStatus(404)));
+        stubFor(get(urlEqualTo("/planets/9999")).willReturn(aResponse().withStatus(404)));
+
+        // Same behavior as the snapshot implementation.
+        assertThatThrownBy(() -> sws.findFilmsByCharacter(9999))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("9999");
+        assertThatThrownBy(() -> sws.findFilmsByPlanet(9999))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("9999");
+    }
 }
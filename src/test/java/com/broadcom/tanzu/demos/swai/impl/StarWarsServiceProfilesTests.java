@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StarWarsServiceProfilesTests {
+    private final StarWarsServiceProfiles profiles = new StarWarsServiceProfiles();
+    private final SpringApplication app = new SpringApplication();
+
+    @Test
+    void testSingleProfile() {
+        final var env = new MockEnvironment();
+        env.setActiveProfiles("reactive", "virtual");
+        assertThatCode(() -> profiles.postProcessEnvironment(env, app)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void testConflictingProfiles() {
+        final var env = new MockEnvironment();
+        env.setActiveProfiles("fake", "reactive");
+        assertThatThrownBy(() -> profiles.postProcessEnvironment(env, app))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("[fake, reactive]");
+    }
+}
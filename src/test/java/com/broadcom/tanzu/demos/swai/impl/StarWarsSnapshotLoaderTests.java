@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.Planet;
+import com.broadcom.tanzu.demos.swai.StarWarsDataChangedEvent;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StarWarsSnapshotLoaderTests {
+    private static final String VERSION_KEY = "swai:dataset:version";
+    private static final String CHANNEL = "swai:cache:invalidations";
+
+    private final Map<String, String> redisData = new HashMap<>();
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> ops = mock(ValueOperations.class);
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private final CacheInvalidations invalidations = new CacheInvalidations(redis, CHANNEL);
+
+    @BeforeEach
+    void setUp() {
+        when(redis.opsForValue()).thenReturn(ops);
+        when(ops.getAndSet(anyString(), anyString()))
+                .thenAnswer(inv -> redisData.put(inv.getArgument(0), inv.getArgument(1)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private StarWarsSnapshotLoader newLoader() {
+        final ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(redis);
+        final ObjectProvider<CacheInvalidations> invalidationsProvider = mock(ObjectProvider.class);
+        when(invalidationsProvider.getIfAvailable()).thenReturn(invalidations);
+        return new StarWarsSnapshotLoader(null, null, events::add, ObservationRegistry.NOOP, provider, VERSION_KEY,
+                invalidationsProvider);
+    }
+
+    private static Message message(String... lines) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8),
+                String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static StarWarsSnapshot snapshot(String title) {
+        final var tatooine = new Planet(1, "Tatooine", "200000");
+        return new StarWarsSnapshot(Instant.now(),
+                List.of(new Film(1, title, 4, LocalDate.of(1977, 5, 25))), List.of(tatooine), List.of(),
+                Map.of(1, new int[]{1}), Map.of(1, new int[0]), Map.of(1, new int[0]));
+    }
+
+    @Test
+    void testDataChanged() {
+        final var loader = newLoader();
+        loader.track(snapshot("A New Hope"));
+        assertThat(events).isEmpty();
+        loader.track(snapshot("A New Hope"));
+        assertThat(events).isEmpty();
+
+        final var newSnapshot = snapshot("Star Wars");
+        loader.track(newSnapshot);
+        assertThat(events).containsExactly(new StarWarsDataChangedEvent(newSnapshot.version()));
+    }
+
+    @Test
+    void testDataChangedWhileStopped() {
+        newLoader().track(snapshot("A New Hope"));
+
+        // After a restart, the first snapshot is compared with the last version stored in Redis.
+        final var newSnapshot = snapshot("Star Wars");
+        newLoader().track(newSnapshot);
+        assertThat(events).containsExactly(new StarWarsDataChangedEvent(newSnapshot.version()));
+        assertThat(redisData).containsEntry(VERSION_KEY, newSnapshot.version());
+
+        newLoader().track(snapshot("Star Wars"));
+        assertThat(events).hasSize(1);
+    }
+
+    @Test
+    void testRedisUnavailable() {
+        when(ops.getAndSet(anyString(), anyString())).thenThrow(new RedisConnectionFailureException("Redis is down"));
+        final var loader = newLoader();
+        loader.track(snapshot("A New Hope"));
+        final var newSnapshot = snapshot("Star Wars");
+        loader.track(newSnapshot);
+        assertThat(events).containsExactly(new StarWarsDataChangedEvent(newSnapshot.version()));
+    }
+
+    @Test
+    void testDataChangeIsBroadcast() {
+        final var loader = newLoader();
+        loader.track(snapshot("A New Hope"));
+        verify(redis, never()).convertAndSend(anyString(), anyString());
+
+        final var newSnapshot = snapshot("Star Wars");
+        loader.track(newSnapshot);
+        verify(redis).convertAndSend(CHANNEL, String.join("\n",
+                invalidations.nodeId(), CacheInvalidations.DATA_CHANGED, newSnapshot.version()));
+    }
+
+    @Test
+    void testDataChangedOnAnotherInstance() {
+        final var loader = newLoader();
+        loader.track(snapshot("A New Hope"));
+
+        // Another instance detected the change first: it updated the version stored in Redis.
+        final var newSnapshot = snapshot("Star Wars");
+        redisData.put(VERSION_KEY, newSnapshot.version());
+        loader.onMessage(message("other-node", CacheInvalidations.DATA_CHANGED, newSnapshot.version()), null);
+        assertThat(events).containsExactly(new StarWarsDataChangedEvent(newSnapshot.version()));
+
+        // The change is not reported again, when this instance reads the new data.
+        loader.onMessage(message("other-node", CacheInvalidations.DATA_CHANGED, newSnapshot.version()), null);
+        loader.track(newSnapshot);
+        assertThat(events).hasSize(1);
+    }
+
+    @Test
+    void testIgnoreOwnAndOtherMessages() {
+        final var loader = newLoader();
+        loader.onMessage(message(invalidations.nodeId(), CacheInvalidations.DATA_CHANGED, "v2"), null);
+        loader.onMessage(message("other-node", CacheInvalidations.CLEAR, "films"), null);
+        assertThat(events).isEmpty();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.broadcom.tanzu.demos.swai.Film;
+import com.broadcom.tanzu.demos.swai.People;
+import com.broadcom.tanzu.demos.swai.Planet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StarWarsSnapshotTests {
+    private final Planet tatooine = new Planet(1, "Tatooine", "200000");
+    private final Planet alderaan = new Planet(2, "Alderaan", "2000000000");
+    private final People luke = new People(1, "Luke Skywalker", tatooine);
+    private final People leia = new People(5, "Leia Organa", alderaan);
+    private final Film newHope = new Film(1, "A New Hope", 4, LocalDate.of(1977, 5, 25));
+
+    private final StarWarsSnapshot snapshot = new StarWarsSnapshot(Instant.now(),
+            List.of(newHope), List.of(tatooine, alderaan), List.of(luke, leia),
+            Map.of(1, new int[]{1, 2}),
+            Map.of(1, new int[]{5, 1}),
+            Map.of(1, new int[]{1}, 2, new int[]{5}));
+
+    @Test
+    void testRelationships() {
+        assertThat(snapshot.planetsByFilm(1)).containsExactly(tatooine, alderaan);
+        assertThat(snapshot.charactersByFilm(1)).containsExactly(leia, luke);
+        assertThat(snapshot.residentsByPlanet(2)).containsExactly(leia);
+    }
+
+    @Test
+    void testReverseRelationships() {
+        assertThat(snapshot.filmsByCharacter(5)).containsExactly(newHope);
+        assertThat(snapshot.filmsByPlanet(2)).containsExactly(newHope);
+        assertThat(snapshot.relationships().filmsByCharacter(42)).isEmpty();
+        assertThatThrownBy(() -> snapshot.filmsByCharacter(42)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testBulkLookups() {
+        assertThat(snapshot.peopleByIds(new int[]{5, 1})).containsExactly(leia, luke);
+        assertThat(snapshot.planetsByIds(new int[]{2})).containsExactly(alderaan);
+        assertThatThrownBy(() -> snapshot.peopleByIds(new int[]{1, 42})).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testCharactersByName() {
+        assertThat(snapshot.charactersByName("sky")).containsExactly(luke);
+        assertThat(snapshot.charactersByName("ORGANA")).containsExactly(leia);
+    }
+
+    @Test
+    void testVersion() {
+        final var sameData = new StarWarsSnapshot(Instant.EPOCH,
+                List.of(newHope), List.of(tatooine, alderaan), List.of(luke, leia),
+                Map.of(1, new int[]{1, 2}),
+                Map.of(1, new int[]{5, 1}),
+                Map.of(1, new int[]{1}, 2, new int[]{5}));
+        assertThat(sameData.version()).isEqualTo(snapshot.version());
+
+        final var otherData = new StarWarsSnapshot(Instant.now(),
+                List.of(newHope), List.of(tatooine, alderaan), List.of(luke, leia),
+                Map.of(1, new int[]{1, 2}),
+                Map.of(1, new int[]{5}),
+                Map.of(1, new int[]{1}, 2, new int[]{5}));
+        assertThat(otherData.version()).isNotEqualTo(snapshot.version());
+    }
+
+    @Test
+    void testUnknownIds() {
+        assertThatThrownBy(() -> snapshot.charactersByFilm(42)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> snapshot.residentsByPlanet(42)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testFileRoundTrip(@TempDir Path dir) throws IOException {
+        final var file = dir.resolve("swapi.snapshot");
+        StarWarsSnapshotFile.write(snapshot, file);
+
+        final var copy = StarWarsSnapshotFile.read(file);
+        assertThat(copy.createdAt()).isEqualTo(snapshot.createdAt().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(copy.films()).containsExactly(newHope);
+        assertThat(copy.planets()).containsExactly(tatooine, alderaan);
+        assertThat(copy.people()).containsExactly(luke, leia);
+        assertThat(copy.charactersByFilm(1)).containsExactly(leia, luke);
+        assertThat(copy.residentsByPlanet(1)).containsExactly(luke);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the default Jackson binding with the streaming SWAPI deserializers on a page of films.
+ * <p>
+ * The streaming deserializers decode resource URLs to ids, which default binding cannot do:
+ * the baseline binds the same page to URL-based DTOs, as SWAPI resources were decoded before.
+ * <p>
+ * Run with:
+ * <code>./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.broadcom.tanzu.demos.swai.impl.SwapiDecodingBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwapiDecodingBenchmark {
+    @Param({"default", "streaming"})
+    public String decoder;
+
+    private ObjectMapper om;
+    private Class<?> pageType;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        final var base = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        switch (decoder) {
+            case "default" -> {
+                om = base;
+                pageType = UrlFilmResults.class;
+            }
+            case "streaming" -> {
+                om = SwapiJacksonModule.swapiObjectMapper(base);
+                pageType = SwapiFilmResults.class;
+            }
+            default -> throw new IllegalArgumentException("Unsupported decoder: " + decoder);
+        }
+        payload = sampleFilmPage().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return om.readValue(payload, pageType);
+    }
+
+    record UrlFilm(
+            String title,
+            @JsonProperty("episode_id") int episodeId,
+            URL url,
+            List<URL> characters,
+            List<URL> planets,
+            @JsonProperty("release_date")
+            LocalDate releaseDate) {
+    }
+
+    record UrlFilmResults(int count, URL next, List<UrlFilm> results) {
+    }
+
+    static String sampleFilmPage() {
+        final var films = new StringJoiner(",");
+        for (int i = 1; i <= 6; ++i) {
+            films.add("""
+                    {
+                      "title": "Film %d",
+                      "episode_id": %d,
+                      "opening_crawl": "%s",
+                      "director": "George Lucas",
+                      "producer": "Gary Kurtz, Rick McCallum",
+                      "release_date": "1977-05-25",
+                      "characters": [%s],
+                      "planets": [%s],
+                      "starships": [%s],
+                      "vehicles": [%s],
+                      "species": [%s],
+                      "created": "2014-12-10T14:23:31.880000Z",
+                      "edited": "2014-12-20T19:49:45.256000Z",
+                      "url": "https://swapi.dev/api/films/%d/"
+                    }
+                    """.formatted(i, i, "It is a period of civil war.\\r\\n".repeat(20),
+                    urls("people", 40), urls("planets", 10), urls("starships", 10),
+                    urls("vehicles", 10), urls("species", 10), i));
+        }
+        return """
+                {"count": 6, "next": null, "previous": null, "results": [%s]}
+                """.formatted(films);
+    }
+
+    private static String urls(String resource, int count) {
+        final var urls = new StringJoiner(",");
+        for (int i = 1; i <= count; ++i) {
+            urls.add("\"https://swapi.dev/api/" + resource + "/" + i + "/\"");
+        }
+        return urls.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SwapiDecodingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
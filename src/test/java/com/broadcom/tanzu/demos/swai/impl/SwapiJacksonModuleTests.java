@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SwapiJacksonModuleTests {
+    private final JsonMapper om = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+
+    @Test
+    void testDecodeFilms() throws Exception {
+        final var page = SwapiJacksonModule.swapiObjectMapper(om)
+                .readValue(SwapiDecodingBenchmark.sampleFilmPage(), SwapiFilmResults.class);
+        assertThat(page.count()).isEqualTo(6);
+        assertThat(page.results()).hasSize(6);
+
+        final var film = page.results().get(0);
+        assertThat(film.title()).isEqualTo("Film 1");
+        assertThat(film.episodeId()).isEqualTo(1);
+        assertThat(film.releaseDate()).isEqualTo(LocalDate.of(1977, 5, 25));
+        assertThat(film.url()).isEqualTo(new SwapiRef(SwapiKind.FILMS, 1));
+        assertThat(film.characters().kind()).isEqualTo(SwapiKind.PEOPLE);
+        assertThat(film.characters().size()).isEqualTo(40);
+        assertThat(film.planets().ids()).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    void testDecodePeople() throws Exception {
+        final var people = SwapiJacksonModule.swapiObjectMapper(om).readValue("""
+                {
+                  "name": "Luke Skywalker",
+                  "height": "172",
+                  "films": ["https://swapi.dev/api/films/1/"],
+                  "homeworld": "https://swapi.dev/api/planets/1/",
+                  "url": "https://swapi.dev/api/people/1/"
+                }
+                """, SwapiPeople.class);
+        assertThat(people.name()).isEqualTo("Luke Skywalker");
+        assertThat(people.homeworld()).isEqualTo(new SwapiRef(SwapiKind.PLANETS, 1));
+        assertThat(people.url()).isEqualTo(new SwapiRef(SwapiKind.PEOPLE, 1));
+    }
+
+    @Test
+    void testRejectUnexpectedResourceKind() {
+        assertThatThrownBy(() -> SwapiJacksonModule.swapiObjectMapper(om).readValue("""
+                {"name": "Tatooine", "residents": ["https://swapi.dev/api/films/1/"]}
+                """, SwapiPlanet.class))
+                .isInstanceOf(JsonMappingException.class);
+    }
+}
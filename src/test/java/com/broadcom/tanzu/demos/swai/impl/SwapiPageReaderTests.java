@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.MediaType;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "app.swapi.url=http://localhost:${wiremock.server.port}")
+@AutoConfigureWireMock(port = 0)
+class SwapiPageReaderTests {
+    @Autowired
+    private Swapi api;
+    @Autowired
+    private SwapiPageReader pages;
+
+    @BeforeEach
+    void setUp() {
+        stubFor(get(urlEqualTo("/planets/"))
+                .willReturn(aResponse().withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("""
+                                {
+                                   "count":5,
+                                   "next":"https://swapi.dev/api/planets/?page=2",
+                                   "previous":null,
+                                   "results":[
+                                      { "name":"Tatooine", "population":"200000", "residents":[], "url":"https://swapi.dev/api/planets/1/" },
+                                      { "name":"Alderaan", "population":"2000000000", "residents":[], "url":"https://swapi.dev/api/planets/2/" }
+                                   ]
+                                }
+                                """)));
+        stubFor(get(urlEqualTo("/planets/?page=2"))
+                .willReturn(aResponse().withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("""
+                                {
+                                   "count":5,
+                                   "next":"https://swapi.dev/api/planets/?page=3",
+                                   "previous":"https://swapi.dev/api/planets/?page=1",
+                                   "results":[
+                                      { "name":"Yavin IV", "population":"1000", "residents":[], "url":"https://swapi.dev/api/planets/3/" },
+                                      { "name":"Hoth", "population":"unknown", "residents":[], "url":"https://swapi.dev/api/planets/4/" }
+                                   ]
+                                }
+                                """)));
+        stubFor(get(urlEqualTo("/planets/?page=3"))
+                .willReturn(aResponse().withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBody("""
+                                {
+                                   "count":5,
+                                   "next":null,
+                                   "previous":"https://swapi.dev/api/planets/?page=2",
+                                   "results":[
+                                      { "name":"Dagobah", "population":"unknown", "residents":[], "url":"https://swapi.dev/api/planets/5/" }
+                                   ]
+                                }
+                                """)));
+    }
+
+    @Test
+    void testReadAll() {
+        final var planets = pages.readAll(api.findAllPlanets(), api::findAllPlanets);
+        assertThat(planets).extracting(SwapiPlanet::name)
+                .containsExactly("Tatooine", "Alderaan", "Yavin IV", "Hoth", "Dagobah");
+    }
+
+    @Test
+    void testStream() {
+        try (final var planets = pages.<SwapiPlanet>stream(api::findAllPlanets, api::findAllPlanets)) {
+            assertThat(planets.map(SwapiPlanet::name))
+                    .containsExactly("Tatooine", "Alderaan", "Yavin IV", "Hoth", "Dagobah");
+        }
+    }
+}
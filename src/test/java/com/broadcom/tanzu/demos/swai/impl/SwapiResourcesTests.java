@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SwapiResourcesTests {
+    @Test
+    void testParseRef() {
+        assertThat(SwapiRef.parse("https://swapi.dev/api/people/42/")).isEqualTo(new SwapiRef(SwapiKind.PEOPLE, 42));
+        assertThat(SwapiRef.parse("https://swapi.dev/api/planets/7")).isEqualTo(new SwapiRef(SwapiKind.PLANETS, 7));
+    }
+
+    @Test
+    void testParseIdInBuffer() {
+        final var buf = "[\"https://swapi.dev/api/films/3/\"]".toCharArray();
+        assertThat(SwapiResources.parseId(buf, 2, buf.length - 4, SwapiKind.FILMS)).isEqualTo(3);
+    }
+
+    @Test
+    void testParseInvalid() {
+        assertThatThrownBy(() -> SwapiRef.parse("https://swapi.dev/api/people/")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SwapiRef.parse("https://swapi.dev/api/droids/1/")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SwapiRef.parse("https://swapi.dev/api/people/1a/")).isInstanceOf(IllegalArgumentException.class);
+        final var buf = "https://swapi.dev/api/species/1/".toCharArray();
+        assertThatThrownBy(() -> SwapiResources.parseId(buf, 0, buf.length, SwapiKind.PLANETS))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -22,10 +22,6 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
 import org.springframework.http.MediaType;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.List;
-
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -37,7 +33,7 @@ class SwapiTests {
     private Swapi api;
 
     @Test
-    void testFindPlanetById() throws MalformedURLException {
+    void testFindPlanetById() {
         stubFor(get(urlEqualTo("/planets/1"))
                 .willReturn(aResponse().withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
                         .withBody("""
@@ -79,18 +75,7 @@ class SwapiTests {
         final var opt = api.findPlanetById(1);
         assertThat(opt).contains(
                 new SwapiPlanet("Tatooine", "200000",
-                        new URL("https://swapi.dev/api/planets/1/"),
-                        List.of(
-                                new URL("https://swapi.dev/api/people/1/"),
-                                new URL("https://swapi.dev/api/people/2/"),
-                                new URL("https://swapi.dev/api/people/4/"),
-                                new URL("https://swapi.dev/api/people/6/"),
-                                new URL("https://swapi.dev/api/people/7/"),
-                                new URL("https://swapi.dev/api/people/8/"),
-                                new URL("https://swapi.dev/api/people/9/"),
-                                new URL("https://swapi.dev/api/people/11/"),
-                                new URL("https://swapi.dev/api/people/43/"),
-                                new URL("https://swapi.dev/api/people/62/")
-                        )));
+                        new SwapiRef(SwapiKind.PLANETS, 1),
+                        SwapiRefs.of(SwapiKind.PEOPLE, 1, 2, 4, 6, 7, 8, 9, 11, 43, 62)));
     }
 }
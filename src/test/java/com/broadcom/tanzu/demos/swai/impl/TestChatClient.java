@@ -18,15 +18,22 @@ package com.broadcom.tanzu.demos.swai.impl;
 
 import org.springframework.ai.chat.ChatClient;
 import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.StreamingChatClient;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 
 @Component
 @Profile("!openai,!mistral")
-class TestChatClient implements ChatClient {
+class TestChatClient implements ChatClient, StreamingChatClient {
     @Override
     public ChatResponse call(Prompt prompt) {
         return null;
     }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.empty();
+    }
 }
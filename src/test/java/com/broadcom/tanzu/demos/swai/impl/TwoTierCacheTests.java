@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2024 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.swai.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+
+class TwoTierCacheTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TwoTierCache newCache(Duration softTtl, Duration ttl) {
+        return new TwoTierCache("test", null, new ConcurrentMapCache("test"), mock(CacheInvalidations.class),
+                null, softTtl, ttl, Runnable::run, meterRegistry);
+    }
+
+    @Test
+    void testStaleWhileRevalidate() {
+        final var cache = newCache(Duration.ZERO, Duration.ofHours(1));
+        cache.put(1, "old");
+        assertThat(cache.get(1, () -> "new")).isEqualTo("old");
+        assertThat(cache.get(1, String.class)).isEqualTo("new");
+        assertThat(meterRegistry.get("swai.cache.stale").tag("reason", "soft").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("swai.cache.refresh").tag("outcome", "success").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testStaleIfError() {
+        final var cache = newCache(Duration.ZERO, Duration.ZERO);
+        cache.put(1, "old");
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.<String>get(1, () -> {
+            throw new IllegalStateException("SWAPI is down");
+        })).isEqualTo("old");
+        assertThat(meterRegistry.get("swai.cache.stale").tag("reason", "error").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testLoadFailureWithoutStaleValue() {
+        final var cache = newCache(Duration.ZERO, Duration.ZERO);
+        assertThatThrownBy(() -> cache.get(1, () -> {
+            throw new IllegalStateException("SWAPI is down");
+        })).isInstanceOf(Cache.ValueRetrievalException.class);
+    }
+
+    @Test
+    void testGetAllWithLoader() {
+        final var cache = newCache(Duration.ofHours(1), Duration.ofHours(1));
+        cache.put(1, "one");
+        final var values = cache.getAll(List.of(1, 2), (keys, expired) -> {
+            assertThat(keys).containsExactly(2);
+            assertThat(expired).isEmpty();
+            final var loaded = new HashMap<Object, Object>();
+            loaded.put(2, "two");
+            return loaded;
+        });
+        assertThat(values).containsEntry(1, "one").containsEntry(2, "two");
+        assertThat(cache.get(2, String.class)).isEqualTo("two");
+    }
+
+    @Test
+    void testGetAllPassesExpiredValues() {
+        final var cache = newCache(Duration.ZERO, Duration.ZERO);
+        cache.put(1, "old");
+        final var values = cache.getAll(List.of(1, 2), (keys, expired) -> {
+            assertThat(keys).containsExactly(1, 2);
+            assertThat(expired).containsExactly(entry(1, "old"));
+            final var loaded = new HashMap<Object, Object>();
+            loaded.put(1, "new");
+            loaded.put(2, "two");
+            return loaded;
+        });
+        assertThat(values).containsEntry(1, "new").containsEntry(2, "two");
+    }
+
+    @Test
+    void testUndecodableValueIsAMiss() {
+        final var l2 = new ConcurrentMapCache("test") {
+            @Override
+            public ValueWrapper get(Object key) {
+                throw new SerializationException("Could not read JSON: legacy layout");
+            }
+        };
+        final var cache = new TwoTierCache("test", null, l2, mock(CacheInvalidations.class),
+                null, Duration.ofHours(1), Duration.ofHours(1), Runnable::run, meterRegistry);
+        assertThat(cache.get(1, () -> "new")).isEqualTo("new");
+        assertThat(cache.getAll(List.of(1), (keys, expired) -> {
+            assertThat(expired).isEmpty();
+            final var loaded = new HashMap<Object, Object>();
+            loaded.put(1, "new");
+            return loaded;
+        })).containsEntry(1, "new");
+    }
+}